@@ -0,0 +1,323 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc.bench;
+
+import com.deepak.wtc.AnalyserMetrics;
+import com.deepak.wtc.CieLab;
+import com.deepak.wtc.CmykLookupTable;
+import com.deepak.wtc.ColorFormat;
+import com.deepak.wtc.ColorSample;
+import com.deepak.wtc.ImagePixelSource;
+import com.deepak.wtc.LatencyHistogram;
+import com.deepak.wtc.NamedColorIndex;
+import com.deepak.wtc.RegionSampler;
+import com.deepak.wtc.SampleExchange;
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JTextField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the stages of a color analyser tick, on synthetic input.
+ *
+ * Each benchmark handles one sample, the colors cycle through a table of
+ * random colors so nothing is constant folded. Run with '-prof gc' to see
+ * the allocation per sample.
+ *
+ * The ICC benchmarks use the profile given with '-p profile=file.icc', or
+ * without one the JDK sRGB profile for the exact conversion ( a full CMM
+ * transform as well ) and a synthetic CMYK color space for the table.
+ *
+ * @author deepak
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyserBenchmark {
+
+    // number of colors cycled through, a power of two
+    private static final int COLORS = 4096;
+    // the CMYK profile, empty for the built in stand ins
+    @Param({""})
+    public String profile;
+    // the synthetic screen and its source
+    private ImagePixelSource source;
+    private RegionSampler regionSampler;
+    private final Point location = new Point();
+    // the colors cycled through
+    private final int[] colors = new int[COLORS];
+    private int next = 0;
+    // the conversion scratch arrays
+    private final float[] hsb = new float[3];
+    private final float[] cmyk = new float[4];
+    private final float[] lab = new float[3];
+    // the exact ICC color space and the lookup table
+    private ColorSpace exactColorSpace;
+    private CmykLookupTable cmykTable;
+    // the named color dictionary
+    private NamedColorIndex namedColors;
+    // the reused sample and the sample exchange
+    private final ColorSample sample = new ColorSample();
+    private final SampleExchange exchange = new SampleExchange();
+    private final char[] hex = new char[6];
+    // the metrics, to measure their overhead
+    private final AnalyserMetrics metrics = new AnalyserMetrics();
+    private final LatencyHistogram histogram = new LatencyHistogram("bench");
+    // the fields a tick updates
+    private final JTextField[] fields = new JTextField[11];
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        int width = 1920;
+        int height = 1080;
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(1 << 24);
+        }
+        source = new ImagePixelSource(pixels, width, height);
+        int[] pathX = new int[COLORS];
+        int[] pathY = new int[COLORS];
+        for (int i = 0; i < COLORS; i++) {
+            colors[i] = 0xFF000000 | random.nextInt(1 << 24);
+            pathX[i] = random.nextInt(width);
+            pathY[i] = random.nextInt(height);
+        }
+        source.setPath(pathX, pathY);
+        regionSampler = new RegionSampler(RegionSampler.Mode.AVERAGE, 9);
+        if (profile.isEmpty()) {
+            exactColorSpace = new ICC_ColorSpace(ICC_Profile.getInstance(ColorSpace.CS_sRGB));
+            cmykTable = new CmykLookupTable(new SyntheticCmykColorSpace());
+        } else {
+            exactColorSpace = new ICC_ColorSpace(ICC_Profile.getInstance(profile));
+            cmykTable = new CmykLookupTable(exactColorSpace);
+        }
+        cmykTable.build();
+        namedColors = NamedColorIndex.loadDefault();
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = new JTextField();
+        }
+    }
+
+    /*
+     * method to get the next color of the cycle
+     */
+    private int nextColor() {
+        return colors[next++ & (COLORS - 1)];
+    }
+
+    /*
+     * method to linearize an sRGB channel value with pow
+     */
+    private static double linearExact(int v) {
+        double c = v / 255.0;
+        return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+    }
+
+    /*
+     * the CIELAB companding function with cbrt
+     */
+    private static double fExact(double t) {
+        return t > 216.0 / 24389.0 ? Math.cbrt(t) : (24389.0 / 27.0 * t + 16) / 116;
+    }
+
+    @Benchmark
+    public int pointerAndPixel() {
+        source.getPointerLocation(location);
+        return source.getPixel(location.x, location.y);
+    }
+
+    @Benchmark
+    public int regionAverage() {
+        source.getPointerLocation(location);
+        return regionSampler.sample(source, location.x, location.y);
+    }
+
+    @Benchmark
+    public float[] rgbToHsb() {
+        int rgb = nextColor();
+        return Color.RGBtoHSB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF, hsb);
+    }
+
+    @Benchmark
+    public float[] rgbToHsbInline() {
+        ColorFormat.rgbToHsb(nextColor(), hsb);
+        return hsb;
+    }
+
+    @Benchmark
+    public String hexOriginal() {
+        return Integer.toHexString(nextColor()).substring(2).toUpperCase();
+    }
+
+    @Benchmark
+    public char[] hexTable() {
+        ColorFormat.hex(nextColor(), hex, 0);
+        return hex;
+    }
+
+    @Benchmark
+    public void formatValues(Blackhole blackhole) {
+        int rgb = nextColor();
+        blackhole.consume(String.valueOf((rgb >> 16) & 0xFF));
+        blackhole.consume(String.valueOf((rgb >> 8) & 0xFF));
+        blackhole.consume(String.valueOf(rgb & 0xFF));
+    }
+
+    @Benchmark
+    public void formatValuesTable(Blackhole blackhole) {
+        int rgb = nextColor();
+        blackhole.consume(ColorFormat.valueOf((rgb >> 16) & 0xFF));
+        blackhole.consume(ColorFormat.valueOf((rgb >> 8) & 0xFF));
+        blackhole.consume(ColorFormat.valueOf(rgb & 0xFF));
+    }
+
+    @Benchmark
+    public float[] iccExact() {
+        return new Color(nextColor()).getColorComponents(exactColorSpace, cmyk);
+    }
+
+    @Benchmark
+    public float[] cmykTable() {
+        cmykTable.lookup(nextColor(), cmyk);
+        return cmyk;
+    }
+
+    @Benchmark
+    public float[] labExact() {
+        // the conversion with pow and cbrt per color, as before the tables
+        int rgb = nextColor();
+        double r = linearExact((rgb >> 16) & 0xFF);
+        double g = linearExact((rgb >> 8) & 0xFF);
+        double b = linearExact(rgb & 0xFF);
+        double fx = fExact((0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / 0.95047);
+        double fy = fExact(0.2126729 * r + 0.7151522 * g + 0.0721750 * b);
+        double fz = fExact((0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / 1.08883);
+        lab[0] = (float) (116 * fy - 16);
+        lab[1] = (float) (500 * (fx - fy));
+        lab[2] = (float) (200 * (fy - fz));
+        return lab;
+    }
+
+    @Benchmark
+    public float[] labTable() {
+        CieLab.fromRGB(nextColor(), lab);
+        return lab;
+    }
+
+    @Benchmark
+    public float[] lch() {
+        CieLab.fromRGB(nextColor(), lab);
+        CieLab.toLCh(lab, lab);
+        return lab;
+    }
+
+    @Benchmark
+    public double contrastRatio() {
+        return CieLab.contrastRatio(CieLab.luminance(nextColor()), CieLab.luminance(0xFFFFFF));
+    }
+
+    @Benchmark
+    public int namedColor() {
+        CieLab.fromRGB(nextColor(), lab);
+        return namedColors.nearest(lab);
+    }
+
+    @Benchmark
+    public ColorSample analyseNew() {
+        return ColorSample.analyse(0, 0, nextColor(), cmykTable);
+    }
+
+    @Benchmark
+    public ColorSample analyse() {
+        // the steady state of a tick, expected to allocate nothing
+        return sample.set(0, 0, nextColor(), cmykTable, namedColors);
+    }
+
+    @Benchmark
+    public ColorSample analyseWithReference() {
+        // analyse with the contrast against a pinned color
+        return sample.set(0, 0, nextColor(), cmykTable, namedColors, 0xFFFFFFFF, null);
+    }
+
+    @Benchmark
+    public ColorSample analyseWithMetrics() {
+        // analyse with the stage latencies recorded, the difference to
+        // analyse is the overhead of the metrics
+        return sample.set(0, 0, nextColor(), cmykTable, namedColors, metrics);
+    }
+
+    @Benchmark
+    public LatencyHistogram histogramRecord() {
+        histogram.record(nextColor() & 0xFFFFF);
+        return histogram;
+    }
+
+    @Benchmark
+    public ColorSample publishAndTake() {
+        // a tick handing its sample over to the event dispatch thread,
+        // expected to allocate nothing
+        exchange.acquire().set(0, 0, nextColor(), cmykTable, null);
+        exchange.publish();
+        ColorSample taken = exchange.take();
+        exchange.recycle(taken);
+        return taken;
+    }
+
+    @Benchmark
+    public void swingUpdate() {
+        // the text updates of a tick, without the painting
+        sample.set(0, 0, nextColor(), cmykTable, null);
+        fields[0].setText(String.valueOf(sample.getRed()));
+        fields[1].setText(String.valueOf(sample.getGreen()));
+        fields[2].setText(String.valueOf(sample.getBlue()));
+        fields[3].setText(String.valueOf(sample.getHue()));
+        fields[4].setText(String.valueOf(sample.getSaturation()));
+        fields[5].setText(String.valueOf(sample.getBrightness()));
+        fields[6].setText(sample.getHex());
+        fields[7].setText(String.valueOf(sample.getCyan()));
+        fields[8].setText(String.valueOf(sample.getMagenta()));
+        fields[9].setText(String.valueOf(sample.getYellow()));
+        fields[10].setText(String.valueOf(sample.getKey()));
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc.bench;
+
+import com.deepak.wtc.BulkConverter;
+import com.deepak.wtc.CieLab;
+import com.deepak.wtc.CmykLookupTable;
+import java.awt.Color;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the bulk conversions against the per pixel conversions.
+ *
+ * All scores are per pixel. The HSB and Lab conversions run on a 1080p
+ * frame of either photo like noisy color blocks or screen like flat areas, the slow CMM conversions on a strip of it. The ICC benchmarks use
+ * the profile given with '-p profile=file.icc', or without one a synthetic
+ * CMYK color space.
+ *
+ * @author deepak
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkBenchmark {
+
+    // the pixels of the frame and of the strip
+    private static final int FRAME = 1920 * 1080;
+    private static final int STRIP = 1920 * 16;
+    // the CMYK profile, empty for the synthetic stand in
+    @Param({""})
+    public String profile;
+    // the frame content, 'photo' or 'screen'
+    @Param({"photo", "screen"})
+    public String content;
+    // the frame
+    private final int[] frame = new int[FRAME];
+    // the planar outputs
+    private final float[] c0 = new float[FRAME];
+    private final float[] c1 = new float[FRAME];
+    private final float[] c2 = new float[FRAME];
+    private final float[] c3 = new float[FRAME];
+    // the converters, parallel and on the calling thread
+    private final BulkConverter parallel = new BulkConverter();
+    private final BulkConverter single = new BulkConverter(null);
+    // the CMYK color space and its lookup table
+    private ColorSpace cmykSpace;
+    private CmykLookupTable cmykTable;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        int[] blocks = {0xFF2040A0, 0xFFE0E0E0, 0xFF102010, 0xFFC03020, 0xFF60A040};
+        boolean photo = content.equals("photo");
+        for (int i = 0; i < FRAME; i++) {
+            frame[i] = blocks[(i / 7919) % blocks.length];
+            if (photo) {
+                frame[i] += (random.nextInt(16) << 16) + (random.nextInt(16) << 8) + random.nextInt(16);
+            } else if (random.nextInt(64) == 0) {
+                // the occasional text or edge pixel
+                frame[i] = 0xFF000000 | random.nextInt(1 << 24);
+            }
+        }
+        cmykSpace = profile.isEmpty() ? new SyntheticCmykColorSpace()
+                : new ICC_ColorSpace(ICC_Profile.getInstance(profile));
+        cmykTable = new CmykLookupTable(cmykSpace);
+        cmykTable.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public void hsbPerPixel(Blackhole blackhole) {
+        // the old path, a new array per pixel
+        for (int i = 0; i < FRAME; i++) {
+            int p = frame[i];
+            blackhole.consume(Color.RGBtoHSB((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public float[] hsbBulk() {
+        single.toHSB(frame, 0, FRAME, c0, c1, c2, 0);
+        return c0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public float[] hsbBulkParallel() {
+        parallel.toHSB(frame, 0, FRAME, c0, c1, c2, 0);
+        return c0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public void labPerPixel(Blackhole blackhole) {
+        for (int i = 0; i < FRAME; i++) {
+            float[] lab = new float[3];
+            CieLab.fromRGB(frame[i], lab);
+            blackhole.consume(lab);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public float[] labBulkParallel() {
+        parallel.toLab(frame, 0, FRAME, c0, c1, c2, 0);
+        return c0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STRIP)
+    public void cmykPerPixel(Blackhole blackhole) {
+        // the old path through the color management module per pixel
+        float[] cmyk = new float[4];
+        for (int i = 0; i < STRIP; i++) {
+            blackhole.consume(new Color(frame[i]).getColorComponents(cmykSpace, cmyk));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STRIP)
+    public float[] cmykBulkOp() {
+        parallel.toCMYK(frame, 0, STRIP, cmykSpace, c0, c1, c2, c3, 0);
+        return c0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAME)
+    public float[] cmykBulkTable() {
+        parallel.toCMYK(frame, 0, FRAME, cmykTable, c0, c1, c2, c3, 0);
+        return c0;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc.bench;
+
+import com.deepak.wtc.PaletteExtractor;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the palette extraction of a 4K frame.
+ *
+ * @author deepak
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaletteBenchmark {
+
+    // the synthetic frame, a few noisy color blocks
+    private int[] frame;
+    private PaletteExtractor extractor;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        int[] blocks = {0xFF2040A0, 0xFFE0E0E0, 0xFF102010, 0xFFC03020, 0xFF60A040};
+        frame = new int[3840 * 2160];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = blocks[(i / 7919) % blocks.length]
+                    + (random.nextInt(16) << 16) + (random.nextInt(16) << 8) + random.nextInt(16);
+        }
+        extractor = new PaletteExtractor(PaletteExtractor.DEFAULT_COLORS);
+    }
+
+    @Benchmark
+    public PaletteExtractor.Palette extract4K() {
+        return extractor.extract(frame, 0, frame.length);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc.bench;
+
+import java.awt.color.ColorSpace;
+
+/**
+ * A naive CMYK color space standing in for a CMYK profile when the
+ * benchmarks are run without one, the lookup table cost does not depend on
+ * the profile.
+ *
+ * @author deepak
+ */
+final class SyntheticCmykColorSpace extends ColorSpace {
+
+    private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+    SyntheticCmykColorSpace() {
+        super(ColorSpace.TYPE_CMYK, 4);
+    }
+
+    @Override
+    public float[] fromRGB(float[] rgb) {
+        float k = 1 - Math.max(rgb[0], Math.max(rgb[1], rgb[2]));
+        float w = k < 1 ? 1 - k : 1;
+        return new float[]{(1 - rgb[0] - k) / w, (1 - rgb[1] - k) / w, (1 - rgb[2] - k) / w, k};
+    }
+
+    @Override
+    public float[] toRGB(float[] cmyk) {
+        float w = 1 - cmyk[3];
+        return new float[]{(1 - cmyk[0]) * w, (1 - cmyk[1]) * w, (1 - cmyk[2]) * w};
+    }
+
+    @Override
+    public float[] fromCIEXYZ(float[] xyz) {
+        return fromRGB(SRGB.fromCIEXYZ(xyz));
+    }
+
+    @Override
+    public float[] toCIEXYZ(float[] cmyk) {
+        return SRGB.toCIEXYZ(toRGB(cmyk));
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The counters and stage latencies of the color analysis loop.
+ *
+ * Every stage of a tick has a {@link LatencyHistogram}, and the loop
+ * counts its ticks, the samples it published, the ticks without a change
+ * or without a pointer. The samples the event dispatch thread drops as
+ * they show nothing new and the samples replaced before they were shown
+ * ( coalesced ) complete the picture. Everything can be read through JMX
+ * under 'com.deepak.wtc' or as a text dump.
+ *
+ * The metrics are on unless the 'wtc.metrics' system property is false,
+ * then {@link #create()} returns null and the loop does not even read the
+ * clock.
+ *
+ * @author deepak
+ */
+public class AnalyserMetrics implements AnalyserMetricsMBean {
+
+    /**
+     * The timed stages, all but the rendering timed on the analyser thread.
+     */
+    public enum Stage {
+
+        POINTER, CAPTURE, HSB, CMYK, LAB, NAME, PUBLISH, RENDER;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+    // the JMX domain
+    private static final String DOMAIN = "com.deepak.wtc";
+    // the stage latencies
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    // the counters, each written by a single thread
+    private volatile long ticks = 0;
+    private volatile long samples = 0;
+    private volatile long unchanged = 0;
+    private volatile long noPointer = 0;
+    private volatile long dropped = 0;
+    // the exchange counting the coalesced samples, null if none
+    private volatile SampleExchange exchange = null;
+    // the time the metrics were created
+    private final long start = System.nanoTime();
+
+    /**
+     * Creates the metrics.
+     */
+    public AnalyserMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms[stage.ordinal()] = new LatencyHistogram(stage.toString());
+        }
+    }
+
+    /**
+     * Creates the metrics unless disabled with the 'wtc.metrics' system
+     * property.
+     *
+     * @return the metrics, null if disabled
+     */
+    public static AnalyserMetrics create() {
+        return Boolean.parseBoolean(System.getProperty("wtc.metrics", "true")) ? new AnalyserMetrics() : null;
+    }
+
+    /**
+     * Registers the metrics and the stage histograms with the platform
+     * MBean server.
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(DOMAIN + ":type=AnalyserMetrics"));
+            for (LatencyHistogram histogram : histograms) {
+                server.registerMBean(histogram, new ObjectName(DOMAIN + ":type=Latency,stage=" + histogram.getName()));
+            }
+        } catch (JMException ex) {
+            Logger.getLogger(AnalyserMetrics.class.getName()).log(Level.WARNING, "could not register the metrics", ex);
+        }
+    }
+
+    /**
+     * Sets the exchange whose coalesced samples are reported.
+     *
+     * @param exchange the exchange
+     */
+    public void setExchange(SampleExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Records the latency of a stage.
+     *
+     * @param stage the stage
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(Stage stage, long nanos) {
+        histograms[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param stage the stage
+     * @return the latency histogram of the stage
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    /**
+     * Counts a tick, called by the analyser thread.
+     */
+    public void tick() {
+        ticks++;
+    }
+
+    /**
+     * Counts a published sample, called by the analyser thread.
+     */
+    public void sampled() {
+        samples++;
+    }
+
+    /**
+     * Counts a tick without a change, called by the analyser thread.
+     */
+    public void unchanged() {
+        unchanged++;
+    }
+
+    /**
+     * Counts a tick without a pointer, called by the analyser thread.
+     */
+    public void noPointer() {
+        noPointer++;
+    }
+
+    /**
+     * Counts a sample dropped as it shows nothing new, called by the event
+     * dispatch thread.
+     */
+    public void dropped() {
+        dropped++;
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public long getSamples() {
+        return samples;
+    }
+
+    @Override
+    public long getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public long getNoPointer() {
+        return noPointer;
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public long getCoalesced() {
+        SampleExchange e = exchange;
+        return e == null ? 0 : e.getCoalesced();
+    }
+
+    @Override
+    public double getTickRate() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return seconds > 0 ? ticks / seconds : 0;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("ticks %d (%.1f/s), samples %d, unchanged %d, no pointer %d, dropped %d, coalesced %d%n",
+                ticks, getTickRate(), samples, unchanged, noPointer, dropped, getCoalesced()));
+        for (LatencyHistogram histogram : histograms) {
+            text.append(histogram).append(String.format("%n"));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * The management interface of the {@link AnalyserMetrics}.
+ *
+ * @author deepak
+ */
+public interface AnalyserMetricsMBean {
+
+    /**
+     * @return the number of analyser ticks
+     */
+    long getTicks();
+
+    /**
+     * @return the number of published samples
+     */
+    long getSamples();
+
+    /**
+     * @return the number of ticks without a change
+     */
+    long getUnchanged();
+
+    /**
+     * @return the number of ticks without a pointer
+     */
+    long getNoPointer();
+
+    /**
+     * @return the number of samples dropped as they showed nothing new
+     */
+    long getDropped();
+
+    /**
+     * @return the number of samples replaced before they were shown
+     */
+    long getCoalesced();
+
+    /**
+     * @return the average number of ticks per second
+     */
+    double getTickRate();
+
+    /**
+     * @return the counters and stage latencies as text
+     */
+    String dump();
+}
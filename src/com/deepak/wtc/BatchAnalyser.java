@@ -0,0 +1,535 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageIO;
+
+/**
+ * Analyses image files without the user interface.
+ *
+ * For every image the average color ( in the same RGB, HSB, hex and CMYK
+ * values the app shows ), per channel histograms, optionally the dominant
+ * color palette and, with an ICC profile, the CMYK ink coverage are written
+ * as CSV or JSON. Images are read one at
+ * a time and each image is split into tiles which are analysed in parallel
+ * on a fork join pool. All sums are kept in integers, so the results do
+ * not depend on the number of threads.
+ *
+ * Usage: BatchAnalyser [options] image|folder...
+ *
+ * @author deepak
+ */
+public class BatchAnalyser {
+
+    // default tile size in pixels per side
+    public static final int DEFAULT_TILE_SIZE = 256;
+    // number of histogram bins per channel
+    public static final int HISTOGRAM_BINS = 16;
+    // the CMYK values are summed in thousandths
+    private static final int INK_SCALE = 1000;
+
+    /**
+     * The analysis of one image, or of one part of it while analysing.
+     */
+    public static final class ImageStats {
+
+        // the number of pixels
+        private long pixels = 0;
+        // the channel sums
+        private long red = 0;
+        private long green = 0;
+        private long blue = 0;
+        // the channel histograms
+        private final long[] redHistogram = new long[HISTOGRAM_BINS];
+        private final long[] greenHistogram = new long[HISTOGRAM_BINS];
+        private final long[] blueHistogram = new long[HISTOGRAM_BINS];
+        // the CMYK sums in thousandths and the largest total ink of a pixel
+        private long cyan = 0;
+        private long magenta = 0;
+        private long yellow = 0;
+        private long key = 0;
+        private int maxInk = 0;
+
+        /*
+         * method to add the stats of another part of the image
+         */
+        private ImageStats add(ImageStats other) {
+            pixels += other.pixels;
+            red += other.red;
+            green += other.green;
+            blue += other.blue;
+            for (int i = 0; i < HISTOGRAM_BINS; i++) {
+                redHistogram[i] += other.redHistogram[i];
+                greenHistogram[i] += other.greenHistogram[i];
+                blueHistogram[i] += other.blueHistogram[i];
+            }
+            cyan += other.cyan;
+            magenta += other.magenta;
+            yellow += other.yellow;
+            key += other.key;
+            maxInk = Math.max(maxInk, other.maxInk);
+            return this;
+        }
+
+        /**
+         * @return the number of pixels analysed
+         */
+        public long getPixels() {
+            return pixels;
+        }
+
+        /**
+         * @return the average color as packed opaque rgb, rounded
+         */
+        public int getAverageRGB() {
+            if (pixels == 0) {
+                return 0xFF000000;
+            }
+            long half = pixels / 2;
+            return 0xFF000000 | (int) ((red + half) / pixels) << 16
+                    | (int) ((green + half) / pixels) << 8 | (int) ((blue + half) / pixels);
+        }
+
+        /**
+         * @return the red histogram, bin i counts the values 16i - 16i+15
+         */
+        public long[] getRedHistogram() {
+            return redHistogram.clone();
+        }
+
+        /**
+         * @return the green histogram, bin i counts the values 16i - 16i+15
+         */
+        public long[] getGreenHistogram() {
+            return greenHistogram.clone();
+        }
+
+        /**
+         * @return the blue histogram, bin i counts the values 16i - 16i+15
+         */
+        public long[] getBlueHistogram() {
+            return blueHistogram.clone();
+        }
+
+        /**
+         * @return the average cyan, magenta, yellow and key coverage in
+         * percentage, zeros if no profile was used
+         */
+        public double[] getInkCoverage() {
+            double scale = pixels == 0 ? 0 : 100.0 / INK_SCALE / pixels;
+            return new double[]{cyan * scale, magenta * scale, yellow * scale, key * scale};
+        }
+
+        /**
+         * @return the largest total ink of any pixel in percentage
+         */
+        public double getMaxInk() {
+            return maxInk * 100.0 / INK_SCALE;
+        }
+    }
+
+    /*
+     * the fork join task analysing a range of tiles
+     */
+    private static final class TileTask extends RecursiveTask<ImageStats> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BufferedImage image;
+        private final CmykLookupTable cmykTable;
+        private final int tileSize;
+        // the range of tile numbers, row major over the tile grid
+        private final int first;
+        private final int last;
+
+        TileTask(BufferedImage image, CmykLookupTable cmykTable, int tileSize, int first, int last) {
+            this.image = image;
+            this.cmykTable = cmykTable;
+            this.tileSize = tileSize;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected ImageStats compute() {
+            if (last - first > 1) {
+                // split the range, the halves are always combined in the same order
+                int middle = (first + last) >>> 1;
+                TileTask left = new TileTask(image, cmykTable, tileSize, first, middle);
+                TileTask right = new TileTask(image, cmykTable, tileSize, middle, last);
+                left.fork();
+                ImageStats stats = right.compute();
+                return left.join().add(stats);
+            }
+            return analyseTile(first);
+        }
+
+        /*
+         * method to analyse a single tile
+         */
+        private ImageStats analyseTile(int tile) {
+            int columns = (image.getWidth() + tileSize - 1) / tileSize;
+            int x = (tile % columns) * tileSize;
+            int y = (tile / columns) * tileSize;
+            int width = Math.min(tileSize, image.getWidth() - x);
+            int height = Math.min(tileSize, image.getHeight() - y);
+            int[] pixels = image.getRGB(x, y, width, height, null, 0, width);
+            ImageStats stats = new ImageStats();
+            float[] cmyk = new float[4];
+            for (int p : pixels) {
+                int r = (p >> 16) & 0xFF;
+                int g = (p >> 8) & 0xFF;
+                int b = p & 0xFF;
+                stats.red += r;
+                stats.green += g;
+                stats.blue += b;
+                stats.redHistogram[r * HISTOGRAM_BINS / 256]++;
+                stats.greenHistogram[g * HISTOGRAM_BINS / 256]++;
+                stats.blueHistogram[b * HISTOGRAM_BINS / 256]++;
+                if (cmykTable != null) {
+                    cmykTable.lookup(p, cmyk);
+                    int c = Math.round(cmyk[0] * INK_SCALE);
+                    int m = Math.round(cmyk[1] * INK_SCALE);
+                    int ye = Math.round(cmyk[2] * INK_SCALE);
+                    int k = Math.round(cmyk[3] * INK_SCALE);
+                    stats.cyan += c;
+                    stats.magenta += m;
+                    stats.yellow += ye;
+                    stats.key += k;
+                    stats.maxInk = Math.max(stats.maxInk, c + m + ye + k);
+                }
+            }
+            stats.pixels = pixels.length;
+            return stats;
+        }
+    }
+    // the pool the tiles are analysed on
+    private final ForkJoinPool pool;
+    // the CMYK table of the profile, null for no CMYK values
+    private final CmykLookupTable cmykTable;
+    // the tile size in pixels per side
+    private final int tileSize;
+    // the palette extractor, null for no palettes
+    private PaletteExtractor paletteExtractor = null;
+
+    /**
+     * Creates an analyser.
+     *
+     * @param threads the number of threads to analyse with
+     * @param cmykTable the CMYK lookup table of the ICC profile, null for no
+     * CMYK values
+     * @param tileSize the tile size in pixels per side
+     */
+    public BatchAnalyser(int threads, CmykLookupTable cmykTable, int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("invalid tile size " + tileSize);
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.cmykTable = cmykTable;
+        this.tileSize = tileSize;
+        // build the table up front, a table still building converts exactly
+        // and the results would depend on the timing
+        if (cmykTable != null) {
+            cmykTable.build();
+        }
+    }
+
+    /**
+     * Enables the palette extraction, sharing the analysis threads.
+     *
+     * @param colors the number of palette colors, 0 for no palettes
+     */
+    public void setPaletteColors(int colors) {
+        paletteExtractor = colors > 0 ? new PaletteExtractor(colors, pool) : null;
+    }
+
+    /**
+     * Analyses an image.
+     *
+     * @param image the image
+     * @return the analysis
+     */
+    public ImageStats analyse(BufferedImage image) {
+        int columns = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        return pool.invoke(new TileTask(image, cmykTable, tileSize, 0, columns * rows));
+    }
+
+    /**
+     * Shuts down the analysis threads.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        String format = "csv";
+        File output = null;
+        File profile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int tileSize = DEFAULT_TILE_SIZE;
+        int paletteColors = 0;
+        List<File> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = args[++i].toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("unknown format " + format);
+                        }
+                        break;
+                    case "--output":
+                        output = new File(args[++i]);
+                        break;
+                    case "--profile":
+                        profile = new File(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--tile":
+                        tileSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--palette":
+                        paletteColors = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        }
+                        inputs.add(new File(args[i]));
+                }
+            }
+            if (inputs.isEmpty()) {
+                throw new IllegalArgumentException("no images given");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex instanceof ArrayIndexOutOfBoundsException ? "missing option value" : ex.getMessage());
+            System.err.println("usage: BatchAnalyser [--format csv|json] [--output file] [--profile file.icc]"
+                    + " [--threads n] [--tile size] [--palette colors] image|folder...");
+            System.exit(2);
+            return;
+        }
+        try {
+            CmykLookupTable table = profile == null ? null
+                    : new CmykLookupTable(new ICC_ColorSpace(ICC_Profile.getInstance(profile.getAbsolutePath())));
+            BatchAnalyser analyser = new BatchAnalyser(threads, table, tileSize);
+            analyser.setPaletteColors(paletteColors);
+            try (PrintWriter out = new PrintWriter(output == null
+                    ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                    : new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+                analyser.analyseAll(listImages(inputs), format.equals("json"), out);
+            } finally {
+                analyser.shutdown();
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            Logger.getLogger(BatchAnalyser.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        }
+    }
+
+    /*
+     * method to analyse the images one by one and write the results
+     */
+    private void analyseAll(List<File> images, boolean json, PrintWriter out) {
+        if (json) {
+            out.println("[");
+        } else {
+            out.println("file,width,height,red,green,blue,hex,hue,saturation,brightness,"
+                    + "cyan,magenta,yellow,key,total_ink,max_ink,red_histogram,green_histogram,blue_histogram,palette");
+        }
+        boolean first = true;
+        for (File file : images) {
+            BufferedImage image;
+            try {
+                image = ImageIO.read(file);
+            } catch (IOException | RuntimeException ex) {
+                // the decoders also throw unchecked exceptions on broken files
+                Logger.getLogger(BatchAnalyser.class.getName()).log(Level.WARNING, "could not read " + file, ex);
+                continue;
+            }
+            if (image == null) {
+                Logger.getLogger(BatchAnalyser.class.getName()).log(Level.WARNING, "not an image: {0}", file);
+                continue;
+            }
+            ImageStats stats = analyse(image);
+            PaletteExtractor.Palette palette = paletteExtractor == null ? null : paletteExtractor.extract(image);
+            // the average color in the same values the app shows
+            ColorSample average = ColorSample.analyse(0, 0, stats.getAverageRGB(), null);
+            double[] ink = stats.getInkCoverage();
+            if (json) {
+                out.print(first ? "" : ",\n");
+                out.printf(Locale.ROOT, "  {\"file\": %s, \"width\": %d, \"height\": %d,"
+                        + " \"average\": {\"red\": %d, \"green\": %d, \"blue\": %d, \"hex\": \"%s\","
+                        + " \"hue\": %d, \"saturation\": %d, \"brightness\": %d}",
+                        quote(file.getPath()), image.getWidth(), image.getHeight(),
+                        average.getRed(), average.getGreen(), average.getBlue(), average.getHex(),
+                        average.getHue(), average.getSaturation(), average.getBrightness());
+                if (cmykTable != null) {
+                    out.printf(Locale.ROOT, ", \"ink\": {\"cyan\": %.2f, \"magenta\": %.2f, \"yellow\": %.2f,"
+                            + " \"key\": %.2f, \"total\": %.2f, \"max\": %.1f}",
+                            ink[0], ink[1], ink[2], ink[3], ink[0] + ink[1] + ink[2] + ink[3], stats.getMaxInk());
+                }
+                out.printf(", \"histogram\": {\"red\": %s, \"green\": %s, \"blue\": %s}",
+                        Arrays.toString(stats.redHistogram), Arrays.toString(stats.greenHistogram),
+                        Arrays.toString(stats.blueHistogram));
+                if (palette != null) {
+                    out.print(", \"palette\": [");
+                    for (int i = 0; i < palette.size(); i++) {
+                        out.printf(Locale.ROOT, "%s{\"hex\": \"%06X\", \"share\": %.4f}", i == 0 ? "" : ", ",
+                                palette.getColor(i) & 0xFFFFFF, (double) palette.getCount(i) / stats.getPixels());
+                    }
+                    out.print("]");
+                }
+                out.print("}");
+            } else {
+                out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%s,%d,%d,%d,",
+                        csv(file.getPath()), image.getWidth(), image.getHeight(),
+                        average.getRed(), average.getGreen(), average.getBlue(), average.getHex(),
+                        average.getHue(), average.getSaturation(), average.getBrightness());
+                if (cmykTable != null) {
+                    out.printf(Locale.ROOT, "%.2f,%.2f,%.2f,%.2f,%.2f,%.1f,",
+                            ink[0], ink[1], ink[2], ink[3], ink[0] + ink[1] + ink[2] + ink[3], stats.getMaxInk());
+                } else {
+                    out.print(",,,,,,");
+                }
+                out.printf("%s,%s,%s,", histogram(stats.redHistogram),
+                        histogram(stats.greenHistogram), histogram(stats.blueHistogram));
+                if (palette != null) {
+                    for (int i = 0; i < palette.size(); i++) {
+                        out.printf("%s%06X", i == 0 ? "" : " ", palette.getColor(i) & 0xFFFFFF);
+                    }
+                }
+                out.println();
+            }
+            out.flush();
+            first = false;
+        }
+        if (json) {
+            out.println(first ? "]" : "\n]");
+        }
+    }
+
+    /*
+     * method to list the image files of the inputs, folders are searched
+     * recursively. the files are sorted so the output order is stable
+     */
+    private static List<File> listImages(List<File> inputs) {
+        Set<String> suffixes = new HashSet<>();
+        for (String suffix : ImageIO.getReaderFileSuffixes()) {
+            suffixes.add(suffix.toLowerCase(Locale.ROOT));
+        }
+        List<File> images = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                collect(input, suffixes, images);
+            } else {
+                images.add(input);
+            }
+        }
+        return images;
+    }
+
+    /*
+     * method to collect the image files of a folder
+     */
+    private static void collect(File folder, Set<String> suffixes, List<File> images) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory()) {
+                collect(file, suffixes, images);
+            } else {
+                String name = file.getName();
+                int dot = name.lastIndexOf('.');
+                if (dot > 0 && suffixes.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                    images.add(file);
+                }
+            }
+        }
+    }
+
+    /*
+     * method to format a histogram as a space separated csv field
+     */
+    private static String histogram(long[] bins) {
+        StringBuilder field = new StringBuilder();
+        for (long bin : bins) {
+            field.append(field.length() == 0 ? "" : " ").append(bin);
+        }
+        return field.toString();
+    }
+
+    /*
+     * method to quote a csv field if needed, also used by the stream analyser
+     */
+    static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /*
+     * method to quote a json string, also used by the sampling server
+     */
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
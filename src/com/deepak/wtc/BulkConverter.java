@@ -0,0 +1,652 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorConvertOp;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.WritableRaster;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts whole buffers of packed ARGB pixels to planar HSB, CMYK or
+ * CIELAB values, as floats or scaled to bytes.
+ *
+ * The per pixel conversions ( {@link java.awt.Color#RGBtoHSB} and
+ * {@link java.awt.Color#getColorComponents} ) allocate and dispatch for
+ * every pixel. Here the pixels are converted in tight loops over primitive
+ * arrays, one output array per component, with the buffer split into
+ * slices converted in parallel on a fork join pool. A pixel repeating the
+ * pixel before it ( the flat areas of screen content ) just copies its
+ * values instead of converting them again. The HSB values are the
+ * same as the per pixel conversion gives. The CMYK values come either from
+ * a {@link CmykLookupTable} or from a {@link ColorConvertOp} running the
+ * color management module on whole rows at a time.
+ *
+ * @author deepak
+ */
+public class BulkConverter {
+
+    // the pixels below which a slice is converted without splitting it further
+    private static final int SLICE = 1 << 14;
+    // the pixels per row and the rows per slice of the color convert op
+    private static final int ROW = 1024;
+    private static final int OP_ROWS = 64;
+    // the pixels a buffer is converted in at a time
+    private static final int BUFFER_CHUNK = 1 << 18;
+    // the pool the slices run on, null to convert on the calling thread
+    private final ForkJoinPool pool;
+
+    /*
+     * the pool shared by the converters created without a pool of their own
+     */
+    private static final class SharedPool {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /*
+     * a conversion of the pixels of a range, relative to the start of the
+     * input and the output
+     */
+    private interface Kernel {
+
+        void convert(int from, int to);
+    }
+
+    /*
+     * a conversion of an array of pixels, used to convert buffers chunk by
+     * chunk
+     */
+    private interface ArrayConversion {
+
+        void convert(int[] argb, int offset, int length, int outOffset);
+    }
+
+    /*
+     * the fork join task converting a range of pixels
+     */
+    private static final class SliceTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Kernel kernel;
+        private final int from;
+        private final int to;
+        private final int slice;
+
+        SliceTask(Kernel kernel, int from, int to, int slice) {
+            this.kernel = kernel;
+            this.from = from;
+            this.to = to;
+            this.slice = slice;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= slice) {
+                kernel.convert(from, to);
+                return;
+            }
+            // split at a slice boundary
+            int middle = from + Math.max(1, (to - from) / slice / 2) * slice;
+            invokeAll(new SliceTask(kernel, from, middle, slice), new SliceTask(kernel, middle, to, slice));
+        }
+    }
+
+    /**
+     * Creates a converter on a pool shared by all such converters, with one
+     * thread per processor.
+     */
+    public BulkConverter() {
+        this(SharedPool.POOL);
+    }
+
+    /**
+     * Creates a converter.
+     *
+     * @param pool the pool to convert the slices on, null to convert on the
+     * calling thread only
+     */
+    public BulkConverter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /*
+     * method to run a kernel over a range, in parallel if the range is long
+     * enough and there is a pool
+     */
+    private void run(Kernel kernel, int length, int slice) {
+        if (pool == null || length <= slice) {
+            kernel.convert(0, length);
+        } else {
+            pool.invoke(new SliceTask(kernel, 0, length, slice));
+        }
+    }
+
+    /*
+     * method to check an input range and the output arrays
+     */
+    private static void check(int[] argb, int offset, int length, int outOffset, Object... outputs) {
+        if (offset < 0 || length < 0 || offset + length > argb.length || outOffset < 0) {
+            throw new IndexOutOfBoundsException("invalid range " + offset + " + " + length + " of " + argb.length);
+        }
+        for (Object output : outputs) {
+            int size = output instanceof float[] ? ((float[]) output).length : ((byte[]) output).length;
+            if (outOffset + length > size) {
+                throw new IndexOutOfBoundsException("output too small: " + size + " < " + (outOffset + length));
+            }
+        }
+    }
+
+    /*
+     * method to convert the remaining pixels of a buffer, through its array
+     * if it has one or else chunk by chunk through a copy
+     */
+    private static void convertBuffer(IntBuffer argb, int outOffset, ArrayConversion conversion) {
+        int length = argb.remaining();
+        if (argb.hasArray()) {
+            conversion.convert(argb.array(), argb.arrayOffset() + argb.position(), length, outOffset);
+            argb.position(argb.limit());
+            return;
+        }
+        int[] chunk = new int[Math.min(length, BUFFER_CHUNK)];
+        for (int done = 0; done < length; done += chunk.length) {
+            int n = Math.min(chunk.length, length - done);
+            argb.get(chunk, 0, n);
+            conversion.convert(chunk, 0, n, outOffset + done);
+        }
+    }
+
+    /**
+     * Converts pixels to HSB, the same values as
+     * {@link java.awt.Color#RGBtoHSB(int, int, int, float[])}.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param hue the hue output, 0 - 1
+     * @param saturation the saturation output, 0 - 1
+     * @param brightness the brightness output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toHSB(final int[] argb, final int offset, int length,
+            final float[] hue, final float[] saturation, final float[] brightness, final int outOffset) {
+        check(argb, offset, length, outOffset, hue, saturation, brightness);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                hsb(argb, offset + from, to - from, hue, saturation, brightness, outOffset + from);
+            }
+        }, length, SLICE);
+    }
+
+    /**
+     * Converts the remaining pixels of a buffer to HSB, see
+     * {@link #toHSB(int[], int, int, float[], float[], float[], int)}.
+     *
+     * @param argb the packed pixels, the alpha is ignored, consumed
+     * @param hue the hue output, 0 - 1
+     * @param saturation the saturation output, 0 - 1
+     * @param brightness the brightness output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toHSB(IntBuffer argb, final float[] hue, final float[] saturation, final float[] brightness,
+            int outOffset) {
+        convertBuffer(argb, outOffset, new ArrayConversion() {
+            @Override
+            public void convert(int[] pixels, int offset, int length, int outOffset) {
+                toHSB(pixels, offset, length, hue, saturation, brightness, outOffset);
+            }
+        });
+    }
+
+    /**
+     * Converts pixels to HSB scaled to bytes, 0 - 255 for the ranges 0 - 1
+     * ( the hue wraps around, 255 is just below a full turn ).
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param hue the hue output
+     * @param saturation the saturation output
+     * @param brightness the brightness output
+     * @param outOffset the index of the first output value
+     */
+    public void toHSB(final int[] argb, final int offset, int length,
+            final byte[] hue, final byte[] saturation, final byte[] brightness, final int outOffset) {
+        check(argb, offset, length, outOffset, hue, saturation, brightness);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                // convert through a small float buffer per slice
+                float[] h = new float[Math.min(SLICE, to - from)];
+                float[] s = new float[h.length];
+                float[] b = new float[h.length];
+                for (int start = from; start < to; start += h.length) {
+                    int n = Math.min(h.length, to - start);
+                    hsb(argb, offset + start, n, h, s, b, 0);
+                    for (int i = 0; i < n; i++) {
+                        int o = outOffset + start + i;
+                        hue[o] = (byte) ((int) (h[i] * 256) & 0xFF);
+                        saturation[o] = (byte) (int) (s[i] * 255 + 0.5f);
+                        brightness[o] = (byte) (int) (b[i] * 255 + 0.5f);
+                    }
+                }
+            }
+        }, length, SLICE);
+    }
+
+    /*
+     * method to check whether a pixel has the color of the pixel before it,
+     * the alpha is ignored
+     */
+    private static boolean repeats(int[] argb, int index, int start) {
+        return index > start && ((argb[index] ^ argb[index - 1]) & 0xFFFFFF) == 0;
+    }
+
+    /*
+     * method to convert pixels to HSB, the algorithm of Color.RGBtoHSB into
+     * separate component arrays
+     */
+    private static void hsb(int[] argb, int offset, int length,
+            float[] hue, float[] saturation, float[] brightness, int outOffset) {
+        for (int i = 0; i < length; i++) {
+            int o = outOffset + i;
+            if (repeats(argb, offset + i, offset)) {
+                hue[o] = hue[o - 1];
+                saturation[o] = saturation[o - 1];
+                brightness[o] = brightness[o - 1];
+                continue;
+            }
+            int p = argb[offset + i];
+            int r = (p >> 16) & 0xFF;
+            int g = (p >> 8) & 0xFF;
+            int b = p & 0xFF;
+            int cmax = Math.max(r, Math.max(g, b));
+            int cmin = Math.min(r, Math.min(g, b));
+            brightness[o] = cmax / 255.0f;
+            float s = cmax != 0 ? (float) (cmax - cmin) / cmax : 0;
+            saturation[o] = s;
+            float h = 0;
+            if (s != 0) {
+                float range = cmax - cmin;
+                float redc = (cmax - r) / range;
+                float greenc = (cmax - g) / range;
+                float bluec = (cmax - b) / range;
+                if (r == cmax) {
+                    h = bluec - greenc;
+                } else if (g == cmax) {
+                    h = 2.0f + redc - bluec;
+                } else {
+                    h = 4.0f + greenc - redc;
+                }
+                h = h / 6.0f;
+                if (h < 0) {
+                    h = h + 1.0f;
+                }
+            }
+            hue[o] = h;
+        }
+    }
+
+    /*
+     * method to scale a 0 - 1 value to a byte, rounded and clamped
+     */
+    private static byte unit(float value) {
+        return (byte) Math.max(0, Math.min(255, (int) (value * 255 + 0.5f)));
+    }
+
+    /**
+     * Converts pixels to CMYK through a lookup table.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param table the lookup table of the CMYK profile
+     * @param cyan the cyan output, 0 - 1
+     * @param magenta the magenta output, 0 - 1
+     * @param yellow the yellow output, 0 - 1
+     * @param key the key output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(final int[] argb, final int offset, int length, final CmykLookupTable table,
+            final float[] cyan, final float[] magenta, final float[] yellow, final float[] key, final int outOffset) {
+        check(argb, offset, length, outOffset, cyan, magenta, yellow, key);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                cmyk(argb, offset + from, to - from, table, cyan, magenta, yellow, key, outOffset + from);
+            }
+        }, length, SLICE);
+    }
+
+    /**
+     * Converts pixels to CMYK through a lookup table, scaled to bytes 0 -
+     * 255 for the range 0 - 1.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param table the lookup table of the CMYK profile
+     * @param cyan the cyan output
+     * @param magenta the magenta output
+     * @param yellow the yellow output
+     * @param key the key output
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(final int[] argb, final int offset, int length, final CmykLookupTable table,
+            final byte[] cyan, final byte[] magenta, final byte[] yellow, final byte[] key, final int outOffset) {
+        check(argb, offset, length, outOffset, cyan, magenta, yellow, key);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                // convert through a small float buffer per slice
+                float[] c = new float[Math.min(SLICE, to - from)];
+                float[] m = new float[c.length];
+                float[] y = new float[c.length];
+                float[] k = new float[c.length];
+                for (int start = from; start < to; start += c.length) {
+                    int n = Math.min(c.length, to - start);
+                    cmyk(argb, offset + start, n, table, c, m, y, k, 0);
+                    for (int i = 0; i < n; i++) {
+                        int o = outOffset + start + i;
+                        cyan[o] = unit(c[i]);
+                        magenta[o] = unit(m[i]);
+                        yellow[o] = unit(y[i]);
+                        key[o] = unit(k[i]);
+                    }
+                }
+            }
+        }, length, SLICE);
+    }
+
+    /*
+     * method to convert pixels to CMYK through a lookup table into separate
+     * component arrays
+     */
+    private static void cmyk(int[] argb, int offset, int length, CmykLookupTable table,
+            float[] cyan, float[] magenta, float[] yellow, float[] key, int outOffset) {
+        float[] cmyk = new float[4];
+        for (int i = 0; i < length; i++) {
+            int o = outOffset + i;
+            if (repeats(argb, offset + i, offset)) {
+                cyan[o] = cyan[o - 1];
+                magenta[o] = magenta[o - 1];
+                yellow[o] = yellow[o - 1];
+                key[o] = key[o - 1];
+                continue;
+            }
+            table.lookup(argb[offset + i], cmyk);
+            cyan[o] = cmyk[0];
+            magenta[o] = cmyk[1];
+            yellow[o] = cmyk[2];
+            key[o] = cmyk[3];
+        }
+    }
+
+    /**
+     * Converts the remaining pixels of a buffer to CMYK through a lookup
+     * table, see
+     * {@link #toCMYK(int[], int, int, CmykLookupTable, float[], float[], float[], float[], int)}.
+     *
+     * @param argb the packed pixels, the alpha is ignored, consumed
+     * @param table the lookup table of the CMYK profile
+     * @param cyan the cyan output, 0 - 1
+     * @param magenta the magenta output, 0 - 1
+     * @param yellow the yellow output, 0 - 1
+     * @param key the key output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(IntBuffer argb, final CmykLookupTable table,
+            final float[] cyan, final float[] magenta, final float[] yellow, final float[] key, int outOffset) {
+        convertBuffer(argb, outOffset, new ArrayConversion() {
+            @Override
+            public void convert(int[] pixels, int offset, int length, int outOffset) {
+                toCMYK(pixels, offset, length, table, cyan, magenta, yellow, key, outOffset);
+            }
+        });
+    }
+
+    /**
+     * Converts pixels to CMYK through the color management module, whole
+     * rows of pixels at a time with a {@link ColorConvertOp}. The op uses the
+     * rendering intent of the profile, so the values may differ slightly
+     * from the per pixel conversion through CIEXYZ.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param colorSpace the CMYK color space
+     * @param cyan the cyan output, 0 - 1
+     * @param magenta the magenta output, 0 - 1
+     * @param yellow the yellow output, 0 - 1
+     * @param key the key output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(final int[] argb, final int offset, int length, final ColorSpace colorSpace,
+            final float[] cyan, final float[] magenta, final float[] yellow, final float[] key, final int outOffset) {
+        if (colorSpace.getNumComponents() != 4) {
+            throw new IllegalArgumentException("not a CMYK color space");
+        }
+        check(argb, offset, length, outOffset, cyan, magenta, yellow, key);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                short[] values = convertOp(argb, offset + from, to - from, colorSpace);
+                for (int i = from, v = 0; i < to; i++, v += 4) {
+                    int o = outOffset + i;
+                    cyan[o] = (values[v] & 0xFFFF) / 65535f;
+                    magenta[o] = (values[v + 1] & 0xFFFF) / 65535f;
+                    yellow[o] = (values[v + 2] & 0xFFFF) / 65535f;
+                    key[o] = (values[v + 3] & 0xFFFF) / 65535f;
+                }
+            }
+        }, length, ROW * OP_ROWS);
+    }
+
+    /**
+     * Converts the remaining pixels of a buffer to CMYK through the color
+     * management module, see
+     * {@link #toCMYK(int[], int, int, ColorSpace, float[], float[], float[], float[], int)}.
+     *
+     * @param argb the packed pixels, the alpha is ignored, consumed
+     * @param colorSpace the CMYK color space
+     * @param cyan the cyan output, 0 - 1
+     * @param magenta the magenta output, 0 - 1
+     * @param yellow the yellow output, 0 - 1
+     * @param key the key output, 0 - 1
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(IntBuffer argb, final ColorSpace colorSpace,
+            final float[] cyan, final float[] magenta, final float[] yellow, final float[] key, int outOffset) {
+        convertBuffer(argb, outOffset, new ArrayConversion() {
+            @Override
+            public void convert(int[] pixels, int offset, int length, int outOffset) {
+                toCMYK(pixels, offset, length, colorSpace, cyan, magenta, yellow, key, outOffset);
+            }
+        });
+    }
+
+    /**
+     * Converts pixels to CMYK through the color management module, scaled
+     * to bytes 0 - 255 for the range 0 - 1, see
+     * {@link #toCMYK(int[], int, int, ColorSpace, float[], float[], float[], float[], int)}.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param colorSpace the CMYK color space
+     * @param cyan the cyan output
+     * @param magenta the magenta output
+     * @param yellow the yellow output
+     * @param key the key output
+     * @param outOffset the index of the first output value
+     */
+    public void toCMYK(final int[] argb, final int offset, int length, final ColorSpace colorSpace,
+            final byte[] cyan, final byte[] magenta, final byte[] yellow, final byte[] key, final int outOffset) {
+        if (colorSpace.getNumComponents() != 4) {
+            throw new IllegalArgumentException("not a CMYK color space");
+        }
+        check(argb, offset, length, outOffset, cyan, magenta, yellow, key);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                short[] values = convertOp(argb, offset + from, to - from, colorSpace);
+                for (int i = from, v = 0; i < to; i++, v += 4) {
+                    int o = outOffset + i;
+                    // 65535 / 255 = 257, rounded
+                    cyan[o] = (byte) (((values[v] & 0xFFFF) + 128) / 257);
+                    magenta[o] = (byte) (((values[v + 1] & 0xFFFF) + 128) / 257);
+                    yellow[o] = (byte) (((values[v + 2] & 0xFFFF) + 128) / 257);
+                    key[o] = (byte) (((values[v + 3] & 0xFFFF) + 128) / 257);
+                }
+            }
+        }, length, ROW * OP_ROWS);
+    }
+
+    /*
+     * method to convert a range of pixels with a color convert op, returns
+     * the 16 bit CMYK values of the pixels, four per pixel
+     */
+    private static short[] convertOp(int[] argb, int offset, int length, ColorSpace colorSpace) {
+        int width = Math.min(ROW, length);
+        int rows = (length + width - 1) / width;
+        // the range as an image, the last row padded
+        BufferedImage source = new BufferedImage(width, rows, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) source.getRaster().getDataBuffer()).getData();
+        System.arraycopy(argb, offset, pixels, 0, length);
+        ComponentColorModel model = new ComponentColorModel(colorSpace, false, false,
+                Transparency.OPAQUE, DataBuffer.TYPE_USHORT);
+        WritableRaster raster = model.createCompatibleWritableRaster(width, rows);
+        new ColorConvertOp(null).filter(source, new BufferedImage(model, raster, false, null));
+        return ((DataBufferUShort) raster.getDataBuffer()).getData();
+    }
+
+    /**
+     * Converts pixels to CIELAB ( D65 ), the same values as
+     * {@link CieLab#fromRGB(int, float[])}.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param lightness the L* output, 0 - 100
+     * @param a the a* output
+     * @param b the b* output
+     * @param outOffset the index of the first output value
+     */
+    public void toLab(final int[] argb, final int offset, int length,
+            final float[] lightness, final float[] a, final float[] b, final int outOffset) {
+        check(argb, offset, length, outOffset, lightness, a, b);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                lab(argb, offset + from, to - from, lightness, a, b, outOffset + from);
+            }
+        }, length, SLICE);
+    }
+
+    /**
+     * Converts pixels to CIELAB ( D65 ) scaled to bytes like the 8 bit ICC
+     * encoding: L* 0 - 100 to 0 - 255, a* and b* offset by 128 and clamped
+     * to 0 - 255.
+     *
+     * @param argb the packed pixels, the alpha is ignored
+     * @param offset the index of the first pixel
+     * @param length the number of pixels
+     * @param lightness the L* output
+     * @param a the a* output
+     * @param b the b* output
+     * @param outOffset the index of the first output value
+     */
+    public void toLab(final int[] argb, final int offset, int length,
+            final byte[] lightness, final byte[] a, final byte[] b, final int outOffset) {
+        check(argb, offset, length, outOffset, lightness, a, b);
+        run(new Kernel() {
+            @Override
+            public void convert(int from, int to) {
+                // convert through a small float buffer per slice
+                float[] l = new float[Math.min(SLICE, to - from)];
+                float[] as = new float[l.length];
+                float[] bs = new float[l.length];
+                for (int start = from; start < to; start += l.length) {
+                    int n = Math.min(l.length, to - start);
+                    lab(argb, offset + start, n, l, as, bs, 0);
+                    for (int i = 0; i < n; i++) {
+                        int o = outOffset + start + i;
+                        lightness[o] = unit(l[i] / 100);
+                        a[o] = (byte) Math.max(0, Math.min(255, Math.round(as[i]) + 128));
+                        b[o] = (byte) Math.max(0, Math.min(255, Math.round(bs[i]) + 128));
+                    }
+                }
+            }
+        }, length, SLICE);
+    }
+
+    /*
+     * method to convert pixels to CIELAB into separate component arrays
+     */
+    private static void lab(int[] argb, int offset, int length,
+            float[] lightness, float[] a, float[] b, int outOffset) {
+        float[] lab = new float[3];
+        for (int i = 0; i < length; i++) {
+            int o = outOffset + i;
+            if (repeats(argb, offset + i, offset)) {
+                lightness[o] = lightness[o - 1];
+                a[o] = a[o - 1];
+                b[o] = b[o - 1];
+                continue;
+            }
+            CieLab.fromRGB(argb[offset + i], lab);
+            lightness[o] = lab[0];
+            a[o] = lab[1];
+            b[o] = lab[2];
+        }
+    }
+
+    /**
+     * Converts the remaining pixels of a buffer to CIELAB, see
+     * {@link #toLab(int[], int, int, float[], float[], float[], int)}.
+     *
+     * @param argb the packed pixels, the alpha is ignored, consumed
+     * @param lightness the L* output, 0 - 100
+     * @param a the a* output
+     * @param b the b* output
+     * @param outOffset the index of the first output value
+     */
+    public void toLab(IntBuffer argb, final float[] lightness, final float[] a, final float[] b, int outOffset) {
+        convertBuffer(argb, outOffset, new ArrayConversion() {
+            @Override
+            public void convert(int[] pixels, int offset, int length, int outOffset) {
+                toLab(pixels, offset, length, lightness, a, b, outOffset);
+            }
+        });
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append only log of sampled colors in a memory mapped file.
+ *
+ * The file starts with a 32 byte header ( magic, version, record size,
+ * start time in epoch milliseconds and the record count ) followed by fixed
+ * size records of 20 bytes: the nanoseconds since the start, the x and y
+ * coordinates and the packed rgb color. The file is mapped in segments
+ * holding a whole number of records, so appending is a few stores into the
+ * page cache and a log survives a crash of the application up to the last
+ * record counted in the header. Replaying maps the file read only and walks
+ * the records without any parsing.
+ *
+ * @author deepak
+ */
+public class CaptureLog implements Closeable {
+
+    // the file identification
+    private static final int MAGIC = 0x5754434C;
+    private static final int VERSION = 1;
+    // the header and record layout
+    private static final int HEADER_SIZE = 32;
+    private static final int COUNT_OFFSET = 24;
+    public static final int RECORD_SIZE = 20;
+    // the number of records mapped at a time
+    private static final int SEGMENT_RECORDS = 1 << 16;
+    private static final long SEGMENT_SIZE = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    // the log file
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    // the mapped header, holds the record count
+    private MappedByteBuffer header;
+    // the mapped segment records are appended to
+    private MappedByteBuffer segment;
+    // the number of records written
+    private long count;
+    // the start time the record timestamps are relative to
+    private final long startNanos;
+    private final long startMillis;
+
+    /**
+     * Opens a log for appending, creating it if needed. Records appended to
+     * an existing log continue its time line.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened or is not a log
+     */
+    public CaptureLog(File file) throws IOException {
+        this.file = file;
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        try {
+            boolean exists = channel.size() >= HEADER_SIZE;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (exists) {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                        || header.getInt(8) != RECORD_SIZE) {
+                    throw new IOException("not a capture log: " + file);
+                }
+                startMillis = header.getLong(16);
+                count = header.getLong(COUNT_OFFSET);
+            } else {
+                startMillis = System.currentTimeMillis();
+                count = 0;
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(8, RECORD_SIZE);
+                header.putLong(16, startMillis);
+                header.putLong(COUNT_OFFSET, 0);
+            }
+            // continue the time line of an existing log
+            startNanos = System.nanoTime() - (System.currentTimeMillis() - startMillis) * 1000000L;
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the log file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of records in the log
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param time the timestamp in nanoseconds ( {@link System#nanoTime()} )
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param rgb the packed rgb color
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized void append(long time, int x, int y, int rgb) throws IOException {
+        if (header == null) {
+            throw new IOException("capture log closed: " + file);
+        }
+        int index = (int) (count % SEGMENT_RECORDS);
+        if (segment == null || index == 0) {
+            // map the segment the next record falls into, extends the file
+            unmap(segment);
+            // never keep the unmapped buffer if the mapping fails
+            segment = null;
+            segment = channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + count / SEGMENT_RECORDS * SEGMENT_SIZE, SEGMENT_SIZE);
+        }
+        int offset = index * RECORD_SIZE;
+        segment.putLong(offset, time - startNanos);
+        segment.putInt(offset + 8, x);
+        segment.putInt(offset + 12, y);
+        segment.putInt(offset + 16, rgb);
+        // the record counts once it is complete
+        header.putLong(COUNT_OFFSET, ++count);
+    }
+
+    /**
+     * Flushes the log and trims the unused part of the last segment.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (header == null) {
+            return;
+        }
+        try {
+            if (segment != null) {
+                segment.force();
+            }
+            header.force();
+            // windows does not shrink a file while parts of it are mapped
+            unmap(segment);
+            unmap(header);
+            header = null;
+            segment = null;
+            try {
+                channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+            } catch (IOException ex) {
+                // the header count still holds, the unused records are ignored
+                Logger.getLogger(CaptureLog.class.getName()).log(Level.WARNING, "capture log not trimmed: " + file, ex);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Replays the records of a log into a history, the timestamps are
+     * translated to this run's {@link System#nanoTime()} time line.
+     *
+     * @param file the log file
+     * @param history the history to record into, keeps the latest records
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read or is not a log
+     */
+    public static long replay(File file, ColorHistory history) throws IOException {
+        try (Reader reader = new Reader(file)) {
+            long offset = System.nanoTime() - (System.currentTimeMillis() - reader.getStartMillis()) * 1000000L;
+            // skip the records the history would drop anyway
+            reader.skip(reader.getCount() - history.getCapacity());
+            long n = 0;
+            while (reader.next()) {
+                history.record(offset + reader.getNanos(), reader.getX(), reader.getY(), reader.getRGB());
+                n++;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * A sequential reader of a log.
+     */
+    public static class Reader implements Closeable {
+
+        // the log file
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        // the header fields
+        private final long startMillis;
+        private final long count;
+        // the mapped segment of the current record
+        private MappedByteBuffer segment;
+        // the index of the current record, -1 before the first
+        private long position = -1;
+        // the offset of the current record in the segment
+        private int offset;
+
+        /**
+         * Opens a log for reading.
+         *
+         * @param file the log file
+         * @throws IOException if the file cannot be read or is not a log
+         */
+        public Reader(File file) throws IOException {
+            raf = new RandomAccessFile(file, "r");
+            channel = raf.getChannel();
+            try {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException("not a capture log: " + file);
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                        || header.getInt(8) != RECORD_SIZE) {
+                    throw new IOException("not a capture log: " + file);
+                }
+                startMillis = header.getLong(16);
+                // never trust the count beyond the data actually present
+                count = Math.min(header.getLong(COUNT_OFFSET), (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                unmap(header);
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        /**
+         * @return the start time of the log in epoch milliseconds
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * @return the number of records in the log
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Skips records.
+         *
+         * @param n the number of records to skip, nothing if not positive
+         */
+        public void skip(long n) {
+            if (n > 0) {
+                position = Math.min(position + n, count - 1);
+                unmap(segment);
+                segment = null;
+            }
+        }
+
+        /**
+         * Moves to the next record.
+         *
+         * @return true if there is a next record
+         * @throws IOException if the file cannot be read
+         */
+        public boolean next() throws IOException {
+            if (position + 1 >= count) {
+                return false;
+            }
+            position++;
+            int index = (int) (position % SEGMENT_RECORDS);
+            if (segment == null || index == 0) {
+                long start = HEADER_SIZE + position / SEGMENT_RECORDS * SEGMENT_SIZE;
+                unmap(segment);
+                // never keep the unmapped buffer if the mapping fails
+                segment = null;
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, channel.size() - start));
+            }
+            offset = index * RECORD_SIZE;
+            return true;
+        }
+
+        /**
+         * @return the nanoseconds of the current record since the start
+         */
+        public long getNanos() {
+            return segment.getLong(offset);
+        }
+
+        /**
+         * @return the x coordinate of the current record
+         */
+        public int getX() {
+            return segment.getInt(offset + 8);
+        }
+
+        /**
+         * @return the y coordinate of the current record
+         */
+        public int getY() {
+            return segment.getInt(offset + 12);
+        }
+
+        /**
+         * @return the packed rgb color of the current record
+         */
+        public int getRGB() {
+            return segment.getInt(offset + 16);
+        }
+
+        @Override
+        public void close() throws IOException {
+            unmap(segment);
+            segment = null;
+            channel.close();
+        }
+    }
+
+    /*
+     * method to unmap a buffer right away instead of when it is garbage
+     * collected, the buffer must not be used afterwards. there is no public
+     * api for it, if the internal one is not accessible the buffer stays
+     * mapped until collected
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException ex) {
+                // java 8 and earlier, the cleaner of the direct buffer
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object clean = cleaner.invoke(buffer);
+                clean.getClass().getMethod("clean").invoke(clean);
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            Logger.getLogger(CaptureLog.class.getName()).log(Level.FINE, "could not unmap the capture log", ex);
+        }
+    }
+
+    /**
+     * Prints a log as comma separated values.
+     *
+     * @param args the log file
+     */
+    public static void main(String args[]) {
+        if (args.length != 1) {
+            System.err.println("usage: CaptureLog file");
+            System.exit(2);
+            return;
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try (Reader reader = new Reader(new File(args[0]))) {
+            out.println("time,x,y,color");
+            while (reader.next()) {
+                // epoch milliseconds with the sub millisecond part kept
+                out.printf("%d.%06d,%d,%d,%s%n",
+                        reader.getStartMillis() + reader.getNanos() / 1000000, reader.getNanos() % 1000000,
+                        reader.getX(), reader.getY(), ColorFormat.hex(reader.getRGB()));
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(CaptureLog.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        } finally {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * A pixel source reading from a capture of a region of another source.
+ *
+ * Lets several consumers of the same tick share one capture: the region is
+ * read once with {@link #capture(PixelSource, int, int, int, int[])} and
+ * the consumers then read it in the coordinates of the original source.
+ * Coordinates outside the captured region are clamped to its edges.
+ *
+ * @author deepak
+ */
+public class CapturePixelSource implements PixelSource {
+
+    // the captured pixels, row major
+    private int[] pixels = new int[1];
+    // the captured region
+    private int originX = 0;
+    private int originY = 0;
+    private int size = 1;
+
+    /**
+     * Captures a square region of a source into a buffer.
+     *
+     * @param source the source
+     * @param x the x coordinate of the center
+     * @param y the y coordinate of the center
+     * @param size the size of the square
+     * @param pixels the buffer the capture is stored in and read from
+     * afterwards, at least size * size long
+     */
+    public void capture(PixelSource source, int x, int y, int size, int[] pixels) {
+        this.pixels = pixels;
+        this.originX = x - size / 2;
+        this.originY = y - size / 2;
+        this.size = size;
+        source.getRegion(originX, originY, size, size, pixels);
+    }
+
+    /**
+     * @return the size of the captured square
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /*
+     * method to clamp a coordinate to the captured square
+     */
+    private int clamp(int value) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        return pixels[clamp(y - originY) * size + clamp(x - originX)];
+    }
+
+    @Override
+    public void getRegion(int x, int y, int width, int height, int[] pixels) {
+        int i = 0;
+        for (int row = 0; row < height; row++) {
+            int offset = clamp(y + row - originY) * size;
+            for (int col = 0; col < width; col++) {
+                pixels[i++] = this.pixels[offset + clamp(x + col - originX)];
+            }
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns a stream of sampled colors into color change events.
+ *
+ * Every watched point is a {@link Track} with a small state machine. A
+ * stable track starts changing when a sample is more than the threshold
+ * ( CIE76 difference ) away from its stable color. The change is reported
+ * once the color has settled, when the samples stayed within the
+ * hysteresis of each other for the debounce time. A change that falls back
+ * to within threshold minus hysteresis of the stable color is dropped
+ * without an event, so a color flickering around the threshold is quiet.
+ *
+ * The tracks are updated on the sampling thread, which calls
+ * {@link #flush()} after each sample to hand the events of all tracks as
+ * one batch to the dispatch thread. The listeners are called there, a slow
+ * listener only lets batches queue up and, once the queue is full, drops
+ * them instead of stalling the sampling.
+ *
+ * @author deepak
+ */
+public class ChangeDetector implements Closeable {
+
+    // default color difference starting a change
+    public static final float DEFAULT_THRESHOLD = 5;
+    // default hysteresis of the threshold and tolerance of a settled color
+    public static final float DEFAULT_HYSTERESIS = 1;
+    // default time a color has to stay settled in milliseconds
+    public static final long DEFAULT_DEBOUNCE = 100;
+    // number of batches queued for the listeners before batches are dropped
+    private static final int QUEUE_SIZE = 64;
+
+    /**
+     * The listener of the color change events.
+     */
+    public interface Listener {
+
+        /**
+         * Called on the dispatch thread with the events of one sample.
+         *
+         * @param events the events, in the order of the tracks updated
+         */
+        void colorsChanged(List<Event> events);
+    }
+
+    /**
+     * A settled color change of a track.
+     */
+    public static final class Event {
+
+        // the track name and the location of the last sample
+        private final String name;
+        private final int x;
+        private final int y;
+        // the wall clock time the change settled
+        private final long time;
+        // the stable color before and after the change
+        private final int previousRGB;
+        private final int rgb;
+        // the difference of the colors
+        private final float deltaE;
+        // the time from the start of the change until it settled in milliseconds
+        private final long settleMillis;
+
+        private Event(String name, int x, int y, long time, int previousRGB, int rgb, float deltaE, long settleMillis) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.time = time;
+            this.previousRGB = previousRGB;
+            this.rgb = rgb;
+            this.deltaE = deltaE;
+            this.settleMillis = settleMillis;
+        }
+
+        /**
+         * @return the name of the track
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the x coordinate of the last sample
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return the y coordinate of the last sample
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return the wall clock time the change settled in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the packed rgb color before the change
+         */
+        public int getPreviousRGB() {
+            return previousRGB;
+        }
+
+        /**
+         * @return the packed rgb color after the change
+         */
+        public int getRGB() {
+            return rgb;
+        }
+
+        /**
+         * @return the CIE76 difference of the colors
+         */
+        public float getDeltaE() {
+            return deltaE;
+        }
+
+        /**
+         * @return the time from the start of the change until it settled in
+         * milliseconds, at least the debounce time
+         */
+        public long getSettleMillis() {
+            return settleMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d, %d) #%s -> #%s \u0394E %.1f", name, x, y,
+                    ColorFormat.hex(previousRGB), ColorFormat.hex(rgb), deltaE);
+        }
+    }
+
+    /**
+     * A watched point and its change state, only used by the sampling
+     * thread.
+     */
+    public static final class Track {
+
+        // the name
+        private final String name;
+        // whether a stable color is known, false until the first sample
+        private boolean started = false;
+        // whether a change is in progress
+        private boolean changing = false;
+        // the stable color
+        private int stableRGB;
+        private final float[] stableLab = new float[3];
+        // the color the change is settling on and since when
+        private int candidateRGB;
+        private final float[] candidateLab = new float[3];
+        private long candidateSince;
+        // the time the change started
+        private long changeStart;
+        // the last sampled color and its CIELAB values
+        private int lastRGB;
+        private final float[] lab = new float[3];
+
+        private Track(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the stable color, 0 before the first sample
+         */
+        public int getStableRGB() {
+            return stableRGB;
+        }
+
+        /**
+         * @return true while a change is settling
+         */
+        public boolean isChanging() {
+            return changing;
+        }
+    }
+
+    // the color difference starting a change and the hysteresis
+    private final float threshold;
+    private final float hysteresis;
+    // the debounce time in nanoseconds
+    private final long debounceNanos;
+    // the listeners
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // the events of the current sample, null while there are none
+    private List<Event> pending = null;
+    // the thread calling the listeners
+    private final ThreadPoolExecutor dispatcher;
+    // the number of events reported and dropped
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a detector with the default threshold, hysteresis and
+     * debounce time.
+     */
+    public ChangeDetector() {
+        this(DEFAULT_THRESHOLD, DEFAULT_HYSTERESIS, DEFAULT_DEBOUNCE);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param threshold the CIE76 difference from the stable color starting
+     * a change, about 2.3 is a just noticeable difference
+     * @param hysteresis how far below the threshold a change has to fall
+     * back to be dropped, and how close the samples have to stay to count as
+     * settled
+     * @param debounceMillis how long the samples have to stay settled
+     */
+    public ChangeDetector(float threshold, float hysteresis, long debounceMillis) {
+        if (!(threshold > 0) || hysteresis < 0 || hysteresis >= threshold || debounceMillis < 0) {
+            throw new IllegalArgumentException("invalid detector threshold " + threshold
+                    + ", hysteresis " + hysteresis + ", debounce " + debounceMillis);
+        }
+        this.threshold = threshold;
+        this.hysteresis = hysteresis;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ChangeDispatcher");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                        // a batch flushed while the detector is closed is not
+                        // a drop, otherwise the listeners are behind
+                        if (!executor.isShutdown()) {
+                            dropped.addAndGet(((Dispatch) r).batch.size());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Creates a track.
+     *
+     * @param name the name reported with the events
+     * @return the track
+     */
+    public Track track(String name) {
+        return new Track(name);
+    }
+
+    /**
+     * Adds a sample of a track, called on the sampling thread.
+     *
+     * @param track the track
+     * @param x the x coordinate of the sample
+     * @param y the y coordinate of the sample
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param nanos the time of the sample from {@link System#nanoTime()}
+     * @return true if the sample completed a change
+     */
+    public boolean update(Track track, int x, int y, int rgb, long nanos) {
+        rgb &= 0xFFFFFF;
+        if (!track.started) {
+            // the first sample is the stable color
+            track.started = true;
+            track.stableRGB = track.lastRGB = rgb;
+            CieLab.fromRGB(rgb, track.stableLab);
+            return false;
+        }
+        if (rgb != track.lastRGB) {
+            track.lastRGB = rgb;
+            CieLab.fromRGB(rgb, track.lab);
+            if (!track.changing) {
+                if (CieLab.deltaE76(track.lab, track.stableLab) > threshold) {
+                    // a change starts, settling on this color
+                    track.changing = true;
+                    track.changeStart = nanos;
+                    settle(track, rgb, nanos);
+                }
+                return false;
+            }
+            if (CieLab.deltaE76(track.lab, track.stableLab) < threshold - hysteresis) {
+                // back to the stable color, no change
+                track.changing = false;
+                return false;
+            }
+            if (CieLab.deltaE76(track.lab, track.candidateLab) > hysteresis) {
+                // still moving, settle on the new color
+                settle(track, rgb, nanos);
+                return false;
+            }
+        }
+        if (!track.changing || nanos - track.candidateSince < debounceNanos) {
+            return false;
+        }
+        // settled for the debounce time, report the change
+        if (pending == null) {
+            pending = new ArrayList<>();
+        }
+        pending.add(new Event(track.name, x, y, System.currentTimeMillis(), track.stableRGB, track.candidateRGB,
+                CieLab.deltaE76(track.candidateLab, track.stableLab),
+                TimeUnit.NANOSECONDS.toMillis(nanos - track.changeStart)));
+        track.changing = false;
+        track.stableRGB = track.candidateRGB;
+        System.arraycopy(track.candidateLab, 0, track.stableLab, 0, 3);
+        return true;
+    }
+
+    /*
+     * method to start settling a track on its last sampled color
+     */
+    private static void settle(Track track, int rgb, long nanos) {
+        track.candidateRGB = rgb;
+        System.arraycopy(track.lab, 0, track.candidateLab, 0, 3);
+        track.candidateSince = nanos;
+    }
+
+    /**
+     * Hands the events of the current sample to the listeners, called on
+     * the sampling thread after updating the tracks.
+     *
+     * @return the number of events handed over
+     */
+    public int flush() {
+        List<Event> batch = pending;
+        if (batch == null) {
+            return 0;
+        }
+        pending = null;
+        events.addAndGet(batch.size());
+        if (!dispatcher.isShutdown()) {
+            dispatcher.execute(new Dispatch(Collections.unmodifiableList(batch)));
+        }
+        return batch.size();
+    }
+
+    /*
+     * a batch of events on its way to the listeners
+     */
+    private class Dispatch implements Runnable {
+
+        // the events
+        private final List<Event> batch;
+
+        private Dispatch(List<Event> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            for (Listener listener : listeners) {
+                try {
+                    listener.colorsChanged(batch);
+                } catch (RuntimeException ex) {
+                    // one failing listener does not keep the others from the events
+                    Logger.getLogger(ChangeDetector.class.getName()).log(Level.WARNING, null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return the number of events handed to the dispatch thread
+     */
+    public long getEvents() {
+        return events.get();
+    }
+
+    /**
+     * @return the number of events dropped as the listeners were behind
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops the dispatch thread once the queued batches are delivered.
+     */
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Waits for the queued batches to be delivered after {@link #close()}.
+     *
+     * @param millis the longest time to wait
+     * @return true if all batches were delivered
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitClose(long millis) throws InterruptedException {
+        return dispatcher.awaitTermination(millis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * Conversion of sRGB colors to CIELAB ( D65 white point ) and LCh, the CIE76
+ * color difference and the WCAG contrast ratio.
+ *
+ * The conversions run for every analysed color, so the sRGB transfer
+ * function is read from a table of the 256 channel values and the cube
+ * root of the CIELAB companding is approximated ( relative error below
+ * 2e-6, L*, a* and b* are off by less than 0.001 ).
+ *
+ * @author deepak
+ */
+public final class CieLab {
+
+    // the D65 reference white
+    private static final double WHITE_X = 0.95047;
+    private static final double WHITE_Y = 1.0;
+    private static final double WHITE_Z = 1.08883;
+    // the CIELAB f(t) constants
+    private static final double EPSILON = 216.0 / 24389.0;
+    private static final double KAPPA = 24389.0 / 27.0;
+    // the linear values of the 8 bit sRGB channel values
+    private static final double[] LINEAR = new double[256];
+    // the WCAG luminance offset of the contrast ratio
+    private static final double FLARE = 0.05;
+
+    static {
+        for (int v = 0; v < LINEAR.length; v++) {
+            double c = v / 255.0;
+            LINEAR[v] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private CieLab() {
+    }
+
+    /**
+     * Converts a color to CIELAB.
+     *
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param lab the array to store L* ( 0 - 100 ), a* and b* in
+     */
+    public static void fromRGB(int rgb, float[] lab) {
+        double r = LINEAR[(rgb >> 16) & 0xFF];
+        double g = LINEAR[(rgb >> 8) & 0xFF];
+        double b = LINEAR[rgb & 0xFF];
+        // linear sRGB to XYZ, relative to the white point
+        double fx = f((0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / WHITE_X);
+        double fy = f((0.2126729 * r + 0.7151522 * g + 0.0721750 * b) / WHITE_Y);
+        double fz = f((0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / WHITE_Z);
+        lab[0] = (float) (116 * fy - 16);
+        lab[1] = (float) (500 * (fx - fy));
+        lab[2] = (float) (200 * (fy - fz));
+    }
+
+    /**
+     * Gets the CIE76 color difference, the euclidean distance in CIELAB.
+     *
+     * @param lab1 the first color
+     * @param lab2 the second color
+     * @return the difference, about 2.3 is a just noticeable difference
+     */
+    public static float deltaE76(float[] lab1, float[] lab2) {
+        float dl = lab1[0] - lab2[0];
+        float da = lab1[1] - lab2[1];
+        float db = lab1[2] - lab2[2];
+        return (float) Math.sqrt(dl * dl + da * da + db * db);
+    }
+
+    /**
+     * Converts a CIELAB color to LCh.
+     *
+     * @param lab the CIELAB color
+     * @param lch the array to store L*, the chroma and the hue angle in
+     * degrees ( 0 - 360 ) in, may be the same array as lab
+     */
+    public static void toLCh(float[] lab, float[] lch) {
+        float a = lab[1];
+        float b = lab[2];
+        double hue = Math.toDegrees(Math.atan2(b, a));
+        lch[0] = lab[0];
+        lch[1] = (float) Math.sqrt(a * a + b * b);
+        lch[2] = (float) (hue < 0 ? hue + 360 : hue);
+    }
+
+    /**
+     * Gets the relative luminance of a color as defined by WCAG.
+     *
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @return the luminance, 0 for black to 1 for white
+     */
+    public static double luminance(int rgb) {
+        return 0.2126 * LINEAR[(rgb >> 16) & 0xFF] + 0.7152 * LINEAR[(rgb >> 8) & 0xFF]
+                + 0.0722 * LINEAR[rgb & 0xFF];
+    }
+
+    /**
+     * Gets the WCAG contrast ratio of two colors.
+     *
+     * @param luminance1 the relative luminance of the first color
+     * @param luminance2 the relative luminance of the second color
+     * @return the ratio, 1 for the same luminance to 21 for black on white
+     */
+    public static double contrastRatio(double luminance1, double luminance2) {
+        return luminance1 > luminance2 ? (luminance1 + FLARE) / (luminance2 + FLARE)
+                : (luminance2 + FLARE) / (luminance1 + FLARE);
+    }
+
+    /*
+     * the CIELAB companding function
+     */
+    private static double f(double t) {
+        return t > EPSILON ? cbrt(t) : (KAPPA * t + 16) / 116;
+    }
+
+    /*
+     * method to approximate the cube root of the companding range
+     *
+     * the exponent is divided by three on the bits of the double, which is
+     * within 4% of the root, and two newton steps take it below 2e-6
+     */
+    private static double cbrt(double t) {
+        double y = Double.longBitsToDouble(Double.doubleToRawLongBits(t) / 3 + 0x2A9F7893782DA1CEL);
+        y -= (y * y * y - t) / (3 * y * y);
+        y -= (y * y * y - t) / (3 * y * y);
+        return y;
+    }
+}
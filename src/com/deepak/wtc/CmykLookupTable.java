@@ -0,0 +1,274 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ColorSpace;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A precomputed RGB to CMYK lookup table for one ICC color space.
+ *
+ * Converting a single color through the ICC color management module is by
+ * far the most expensive step of a sample. The table holds the exact CMYK
+ * values of a regular grid of RGB colors and interpolates between the grid
+ * nodes ( tetrahedral interpolation ), so a conversion costs a few array
+ * reads.
+ *
+ * The grid size trades accuracy for memory, each node holds 4 floats. A
+ * grid size of 0 disables the table and every color is converted exactly.
+ * The table is built lazily in the background on the first lookup, until it
+ * is ready colors are converted exactly, a lookup never waits for the build.
+ *
+ * @author deepak
+ */
+public class CmykLookupTable {
+
+    // default number of grid nodes per channel ( about 560 kB per profile )
+    public static final int DEFAULT_GRID_SIZE = 33;
+    // the largest supported grid size
+    public static final int MAX_GRID_SIZE = 129;
+    // the sRGB color space the sampled colors are in
+    private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+    // the target color space
+    private final ColorSpace colorSpace;
+    // the number of grid nodes per channel
+    private final int gridSize;
+    // the table, 4 floats per node, null until built
+    private volatile float[] table = null;
+    // whether a build has been started, checked by the lookups without locking
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    /**
+     * Creates a table with the grid size set by the 'wtc.lut.grid' system
+     * property or the default grid size.
+     *
+     * @param colorSpace the CMYK color space
+     */
+    public CmykLookupTable(ColorSpace colorSpace) {
+        this(colorSpace, Integer.getInteger("wtc.lut.grid", DEFAULT_GRID_SIZE));
+    }
+
+    /**
+     * Creates a table.
+     *
+     * @param colorSpace the CMYK color space
+     * @param gridSize the number of grid nodes per channel, 2 -
+     * {@link #MAX_GRID_SIZE}, or 0 to convert every color exactly
+     */
+    public CmykLookupTable(ColorSpace colorSpace, int gridSize) {
+        if (colorSpace.getNumComponents() != 4) {
+            throw new IllegalArgumentException("not a 4 component color space");
+        }
+        if (gridSize != 0 && (gridSize < 2 || gridSize > MAX_GRID_SIZE)) {
+            throw new IllegalArgumentException("invalid grid size " + gridSize);
+        }
+        this.colorSpace = colorSpace;
+        this.gridSize = gridSize;
+    }
+
+    /**
+     * @return the CMYK color space
+     */
+    public ColorSpace getColorSpace() {
+        return colorSpace;
+    }
+
+    /**
+     * @return the number of grid nodes per channel, 0 if the table is
+     * disabled
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * @return the memory the table takes once built in bytes
+     */
+    public long getMemoryBytes() {
+        return 4L * 4 * gridSize * gridSize * gridSize;
+    }
+
+    /**
+     * @return true if the table is built and used for the lookups
+     */
+    public boolean isBuilt() {
+        return table != null;
+    }
+
+    /**
+     * Converts a color.
+     *
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmyk the array to store the 4 CMYK values in
+     */
+    public void lookup(int rgb, float[] cmyk) {
+        float[] t = table;
+        if (t == null) {
+            if (gridSize != 0) {
+                buildInBackground();
+            }
+            convert(colorSpace, rgb, cmyk);
+            return;
+        }
+        int n = gridSize - 1;
+        // the position of the color in the grid, split into cell and fraction
+        float fr = ((rgb >> 16) & 0xFF) * n / 255f;
+        float fg = ((rgb >> 8) & 0xFF) * n / 255f;
+        float fb = (rgb & 0xFF) * n / 255f;
+        int r = Math.min((int) fr, n - 1);
+        int g = Math.min((int) fg, n - 1);
+        int b = Math.min((int) fb, n - 1);
+        fr -= r;
+        fg -= g;
+        fb -= b;
+        // the offsets of the neighbour nodes in the table
+        int sr = 4 * gridSize * gridSize;
+        int sg = 4 * gridSize;
+        int sb = 4;
+        int base = r * sr + g * sg + b * sb;
+        // tetrahedral interpolation, pick the tetrahedron of the cell
+        // containing the color and walk its edges from the base node
+        int o1, o2;
+        float w0, w1, w2, w3;
+        if (fr >= fg) {
+            if (fg >= fb) {
+                o1 = sr;
+                o2 = sr + sg;
+                w1 = fr - fg;
+                w2 = fg - fb;
+                w3 = fb;
+            } else if (fr >= fb) {
+                o1 = sr;
+                o2 = sr + sb;
+                w1 = fr - fb;
+                w2 = fb - fg;
+                w3 = fg;
+            } else {
+                o1 = sb;
+                o2 = sr + sb;
+                w1 = fb - fr;
+                w2 = fr - fg;
+                w3 = fg;
+            }
+        } else {
+            if (fb >= fg) {
+                o1 = sb;
+                o2 = sg + sb;
+                w1 = fb - fg;
+                w2 = fg - fr;
+                w3 = fr;
+            } else if (fb >= fr) {
+                o1 = sg;
+                o2 = sg + sb;
+                w1 = fg - fb;
+                w2 = fb - fr;
+                w3 = fr;
+            } else {
+                o1 = sg;
+                o2 = sr + sg;
+                w1 = fg - fr;
+                w2 = fr - fb;
+                w3 = fb;
+            }
+        }
+        w0 = 1 - w1 - w2 - w3;
+        int o3 = sr + sg + sb;
+        for (int c = 0; c < 4; c++) {
+            int i = base + c;
+            cmyk[c] = w0 * t[i] + w1 * t[i + o1] + w2 * t[i + o2] + w3 * t[i + o3];
+        }
+    }
+
+    /*
+     * method to start building the table on a background thread, unless a
+     * build was started before
+     */
+    private void buildInBackground() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Thread builder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                build();
+            }
+        }, "CmykLookupTable");
+        builder.setDaemon(true);
+        builder.setPriority(Thread.MIN_PRIORITY);
+        builder.start();
+    }
+
+    /**
+     * Builds the table on the calling thread if it is not built yet, waits
+     * for a build running on another thread.
+     */
+    public synchronized void build() {
+        if (table != null || gridSize == 0) {
+            return;
+        }
+        building.set(true);
+        long start = System.nanoTime();
+        float[] t = new float[4 * gridSize * gridSize * gridSize];
+        float[] node = new float[4];
+        int n = gridSize - 1;
+        int i = 0;
+        for (int r = 0; r < gridSize; r++) {
+            for (int g = 0; g < gridSize; g++) {
+                for (int b = 0; b < gridSize; b++) {
+                    convert(colorSpace, (float) r / n, (float) g / n, (float) b / n, node);
+                    t[i++] = node[0];
+                    t[i++] = node[1];
+                    t[i++] = node[2];
+                    t[i++] = node[3];
+                }
+            }
+        }
+        table = t;
+        Logger.getLogger(CmykLookupTable.class.getName()).log(Level.FINE, "built {0}^3 CMYK table in {1} ms",
+                new Object[]{gridSize, (System.nanoTime() - start) / 1000000});
+    }
+
+    /**
+     * Converts a color exactly through the color management module, the
+     * same way {@link java.awt.Color#getColorComponents(ColorSpace, float[])}
+     * does.
+     *
+     * @param colorSpace the CMYK color space
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmyk the array to store the 4 CMYK values in
+     */
+    public static void convert(ColorSpace colorSpace, int rgb, float[] cmyk) {
+        convert(colorSpace, ((rgb >> 16) & 0xFF) / 255f, ((rgb >> 8) & 0xFF) / 255f, (rgb & 0xFF) / 255f, cmyk);
+    }
+
+    /*
+     * method to convert a color with 0 - 1 components exactly
+     */
+    private static void convert(ColorSpace colorSpace, float r, float g, float b, float[] cmyk) {
+        float[] xyz = SRGB.toCIEXYZ(new float[]{r, g, b});
+        float[] result = colorSpace.fromCIEXYZ(xyz);
+        System.arraycopy(result, 0, cmyk, 0, 4);
+    }
+}
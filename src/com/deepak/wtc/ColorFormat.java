@@ -0,0 +1,146 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * Conversion and formatting of the displayed color values without
+ * allocations.
+ *
+ * All values the app shows as numbers ( 0 - 255 channels, 0 - 100
+ * percentages and 0 - 360 degrees ) are formatted from a table of strings
+ * created once, and the hex value is written into a given char array.
+ *
+ * @author deepak
+ */
+public final class ColorFormat {
+
+    // the largest value formatted from the table
+    public static final int MAX_TABLE_VALUE = 360;
+    // the strings of the values 0 - 360
+    private static final String[] NUMBERS = new String[MAX_TABLE_VALUE + 1];
+    // the upper case hex digits
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = String.valueOf(i).intern();
+        }
+    }
+
+    private ColorFormat() {
+    }
+
+    /**
+     * Converts a color to HSB, with the same results as
+     * {@link java.awt.Color#RGBtoHSB(int, int, int, float[])}.
+     *
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param hsb the array to store the hue, saturation and brightness in,
+     * each 0 - 1
+     */
+    public static void rgbToHsb(int rgb, float[] hsb) {
+        int r = (rgb >> 16) & 0xFF;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int cmax = r > g ? r : g;
+        if (b > cmax) {
+            cmax = b;
+        }
+        int cmin = r < g ? r : g;
+        if (b < cmin) {
+            cmin = b;
+        }
+        float saturation = cmax != 0 ? ((float) (cmax - cmin)) / ((float) cmax) : 0;
+        float hue = 0;
+        if (saturation != 0) {
+            float range = (float) (cmax - cmin);
+            float redc = ((float) (cmax - r)) / range;
+            float greenc = ((float) (cmax - g)) / range;
+            float bluec = ((float) (cmax - b)) / range;
+            if (r == cmax) {
+                hue = bluec - greenc;
+            } else if (g == cmax) {
+                hue = 2.0f + redc - bluec;
+            } else {
+                hue = 4.0f + greenc - redc;
+            }
+            hue = hue / 6.0f;
+            if (hue < 0) {
+                hue = hue + 1.0f;
+            }
+        }
+        hsb[0] = hue;
+        hsb[1] = saturation;
+        hsb[2] = ((float) cmax) / 255.0f;
+    }
+
+    /**
+     * @param f a 0 - 1 value
+     * @return the percentage value
+     */
+    public static int toPercentage(float f) {
+        return (int) (f * 100);
+    }
+
+    /**
+     * @param f a 0 - 1 value
+     * @return the degree value
+     */
+    public static int toDegree(float f) {
+        return (int) (f * 360);
+    }
+
+    /**
+     * Formats a value, the values 0 - {@link #MAX_TABLE_VALUE} are taken
+     * from a table and allocate nothing.
+     *
+     * @param value the value
+     * @return the decimal string
+     */
+    public static String valueOf(int value) {
+        return value >= 0 && value <= MAX_TABLE_VALUE ? NUMBERS[value] : String.valueOf(value);
+    }
+
+    /**
+     * Writes the 6 digit upper case hex value of a color.
+     *
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param hex the array to write to
+     * @param offset the index of the first digit
+     */
+    public static void hex(int rgb, char[] hex, int offset) {
+        for (int i = offset + 5, v = rgb; i >= offset; i--, v >>= 4) {
+            hex[i] = HEX_DIGITS[v & 0xF];
+        }
+    }
+
+    /**
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @return the 6 digit upper case hex value of the color
+     */
+    public static String hex(int rgb) {
+        char[] hex = new char[6];
+        hex(rgb, hex, 0);
+        return new String(hex);
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A fixed size ring buffer of sampled colors.
+ *
+ * Each record holds a timestamp, the pointer location and the color in
+ * primitive arrays, so recording allocates nothing and the history takes
+ * 20 bytes per record no matter how long it runs. Records are addressed by
+ * their sequence number, older records are overwritten once the buffer is
+ * full. Optionally every record is also appended to a {@link CaptureLog}.
+ *
+ * There is a single writer, readers on other threads check
+ * {@link #isAvailable(long)} after reading a record to detect that it was
+ * overwritten meanwhile, like the readers of a seqlock: the writer claims a
+ * record before writing it and publishes it afterwards, a record is only
+ * available while it is published and its slot is not claimed by a newer
+ * record.
+ *
+ * @author deepak
+ */
+public class ColorHistory {
+
+    // default number of records
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    // the record fields, atomic arrays so the reads of a record are not
+    // reordered with the check of the claimed count after them
+    private final AtomicLongArray times;
+    private final AtomicLongArray locations;
+    private final AtomicIntegerArray colors;
+    // the capacity mask, the capacity is a power of two
+    private final int mask;
+    // the number of records claimed, bumped before a record is written
+    private volatile long claimed = 0;
+    // the number of records written so far, the next sequence number,
+    // bumped after a record is written
+    private volatile long count = 0;
+    // the log every record is appended to, null for none
+    private volatile CaptureLog log = null;
+
+    /**
+     * Creates a history with the capacity set by the 'wtc.history' system
+     * property or the default capacity.
+     */
+    public ColorHistory() {
+        this(Integer.getInteger("wtc.history", DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Creates a history.
+     *
+     * @param capacity the number of records kept, rounded up to a power of
+     * two
+     */
+    public ColorHistory(int capacity) {
+        if (capacity < 1 || capacity > 1 << 28) {
+            throw new IllegalArgumentException("invalid capacity " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        times = new AtomicLongArray(size);
+        locations = new AtomicLongArray(size);
+        colors = new AtomicIntegerArray(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Sets the log every record is appended to. A log is detached before it
+     * is closed, an append racing with the close then fails quietly.
+     *
+     * @param log the log, null to stop logging
+     */
+    public void setLog(CaptureLog log) {
+        this.log = log;
+    }
+
+    /**
+     * @return the log records are appended to, null if none
+     */
+    public CaptureLog getLog() {
+        return log;
+    }
+
+    /**
+     * Records a sample, called by the single writer.
+     *
+     * @param time the timestamp in nanoseconds ( {@link System#nanoTime()} )
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param rgb the packed rgb color
+     */
+    public void record(long time, int x, int y, int rgb) {
+        long sequence = count;
+        int i = (int) sequence & mask;
+        // claim the slot, readers of the record it held see it overwritten
+        claimed = sequence + 1;
+        times.lazySet(i, time);
+        locations.lazySet(i, (long) x << 32 | (y & 0xFFFFFFFFL));
+        colors.lazySet(i, rgb);
+        // publish the record
+        count = sequence + 1;
+        CaptureLog l = log;
+        if (l != null) {
+            try {
+                l.append(time, x, y, rgb);
+            } catch (IOException ex) {
+                // a log detached before it was closed failed on purpose,
+                // otherwise stop logging instead of failing every sample
+                if (log == l) {
+                    log = null;
+                    Logger.getLogger(ColorHistory.class.getName()).log(Level.SEVERE, "capture log stopped", ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of records kept
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the total number of records written, the sequence number of
+     * the next record
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the sequence number of the oldest record still kept
+     */
+    public long getFirst() {
+        return Math.max(0, count - getCapacity());
+    }
+
+    /**
+     * Checks whether a record is written and not being overwritten, called
+     * after reading the record to validate the values read.
+     *
+     * @param sequence a sequence number
+     * @return true if the record is written and not overwritten yet
+     */
+    public boolean isAvailable(long sequence) {
+        return sequence >= 0 && sequence < count && sequence >= claimed - getCapacity();
+    }
+
+    /**
+     * @param sequence the sequence number of an available record
+     * @return the timestamp in nanoseconds
+     */
+    public long getTime(long sequence) {
+        return times.get((int) sequence & mask);
+    }
+
+    /**
+     * @param sequence the sequence number of an available record
+     * @return the x coordinate
+     */
+    public int getX(long sequence) {
+        return (int) (locations.get((int) sequence & mask) >> 32);
+    }
+
+    /**
+     * @param sequence the sequence number of an available record
+     * @return the y coordinate
+     */
+    public int getY(long sequence) {
+        return (int) locations.get((int) sequence & mask);
+    }
+
+    /**
+     * @param sequence the sequence number of an available record
+     * @return the packed rgb color
+     */
+    public int getRGB(long sequence) {
+        return colors.get((int) sequence & mask);
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * A snapshot of one analysed color with all its display values.
+ *
+ * Samples are filled by the analyser thread and handed to the event
+ * dispatch thread as a whole, so the values shown together always belong
+ * to the same sample. To sample without allocating, sample objects are
+ * reused through a {@link SampleExchange}: a sample is only filled while it
+ * is owned by the analyser and never changes while another thread holds it.
+ *
+ * @author deepak
+ */
+public final class ColorSample {
+
+    /**
+     * The reference color given when no color is pinned, transparent as
+     * pinned colors are opaque.
+     */
+    public static final int NO_REFERENCE = 0;
+
+    // the pointer location the color was sampled at
+    private int x;
+    private int y;
+    // the packed opaque rgb color
+    private int rgb;
+    // hue in degrees, saturation and brightness in percentage
+    private int hue;
+    private int saturation;
+    private int brightness;
+    // the CMYK values in percentage, only valid if hasCMYK is true
+    private boolean hasCMYK;
+    private int cyan;
+    private int magenta;
+    private int yellow;
+    private int key;
+    // the CIELAB values and the LCh chroma and hue angle in degrees
+    private final float[] lab = new float[3];
+    private float chroma;
+    private float labHue;
+    // the relative luminance
+    private double luminance;
+    // the pinned reference color and the contrast ratio against it,
+    // NO_REFERENCE and 0 if no color is pinned
+    private int reference;
+    private double contrast;
+    // the nearest named color and its CIE76 difference, null if there is none
+    private String colorName;
+    private float colorNameDistance;
+    // the conversion scratch array
+    private final float[] scratch = new float[4];
+
+    /**
+     * Creates an empty sample, black at 0, 0.
+     */
+    public ColorSample() {
+        set(0, 0, 0, null, null);
+    }
+
+    /**
+     * Analyses a color.
+     *
+     * @param x the x coordinate the color was sampled at
+     * @param y the y coordinate the color was sampled at
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmykTable the CMYK lookup table of the selected ICC profile,
+     * null if there is none
+     * @return the sample
+     */
+    public static ColorSample analyse(int x, int y, int rgb, CmykLookupTable cmykTable) {
+        return new ColorSample().set(x, y, rgb, cmykTable, null);
+    }
+
+    /**
+     * Analyses a color into this sample, allocating nothing.
+     *
+     * @param x the x coordinate the color was sampled at
+     * @param y the y coordinate the color was sampled at
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmykTable the CMYK lookup table of the selected ICC profile,
+     * null if there is none
+     * @param namedColors the named color dictionary, null if there is none
+     * @return this sample
+     */
+    public ColorSample set(int x, int y, int rgb, CmykLookupTable cmykTable, NamedColorIndex namedColors) {
+        return set(x, y, rgb, cmykTable, namedColors, null);
+    }
+
+    /**
+     * Analyses a color into this sample, allocating nothing, and records
+     * the latencies of the conversions.
+     *
+     * @param x the x coordinate the color was sampled at
+     * @param y the y coordinate the color was sampled at
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmykTable the CMYK lookup table of the selected ICC profile,
+     * null if there is none
+     * @param namedColors the named color dictionary, null if there is none
+     * @param metrics the metrics the latencies are recorded in, null for
+     * none
+     * @return this sample
+     */
+    public ColorSample set(int x, int y, int rgb, CmykLookupTable cmykTable, NamedColorIndex namedColors,
+            AnalyserMetrics metrics) {
+        return set(x, y, rgb, cmykTable, namedColors, NO_REFERENCE, metrics);
+    }
+
+    /**
+     * Analyses a color into this sample, allocating nothing, with the
+     * contrast against a reference color, and records the latencies of the
+     * conversions.
+     *
+     * @param x the x coordinate the color was sampled at
+     * @param y the y coordinate the color was sampled at
+     * @param rgb the packed rgb color, the alpha is ignored
+     * @param cmykTable the CMYK lookup table of the selected ICC profile,
+     * null if there is none
+     * @param namedColors the named color dictionary, null if there is none
+     * @param reference the opaque packed reference color, NO_REFERENCE for
+     * none
+     * @param metrics the metrics the latencies are recorded in, null for
+     * none
+     * @return this sample
+     */
+    public ColorSample set(int x, int y, int rgb, CmykLookupTable cmykTable, NamedColorIndex namedColors,
+            int reference, AnalyserMetrics metrics) {
+        long time = metrics == null ? 0 : System.nanoTime();
+        this.x = x;
+        this.y = y;
+        this.rgb = 0xFF000000 | rgb;
+        // get the hsb color values from the rgb values
+        ColorFormat.rgbToHsb(rgb, scratch);
+        hue = ColorFormat.toDegree(scratch[0]);
+        saturation = ColorFormat.toPercentage(scratch[1]);
+        brightness = ColorFormat.toPercentage(scratch[2]);
+        if (metrics != null) {
+            time = lap(metrics, AnalyserMetrics.Stage.HSB, time);
+        }
+        // get the cmyk color based on selected ICC profiles.
+        hasCMYK = cmykTable != null;
+        if (hasCMYK) {
+            cmykTable.lookup(rgb, scratch);
+            cyan = ColorFormat.toPercentage(scratch[0]);
+            magenta = ColorFormat.toPercentage(scratch[1]);
+            yellow = ColorFormat.toPercentage(scratch[2]);
+            key = ColorFormat.toPercentage(scratch[3]);
+            if (metrics != null) {
+                time = lap(metrics, AnalyserMetrics.Stage.CMYK, time);
+            }
+        } else {
+            cyan = magenta = yellow = key = 0;
+        }
+        // get the perceptual values
+        CieLab.fromRGB(rgb, lab);
+        CieLab.toLCh(lab, scratch);
+        chroma = scratch[1];
+        labHue = scratch[2];
+        luminance = CieLab.luminance(rgb);
+        this.reference = reference;
+        contrast = reference == NO_REFERENCE ? 0 : CieLab.contrastRatio(luminance, CieLab.luminance(reference));
+        if (metrics != null) {
+            time = lap(metrics, AnalyserMetrics.Stage.LAB, time);
+        }
+        // find the nearest named color
+        if (namedColors != null) {
+            int nearest = namedColors.nearest(lab);
+            colorName = namedColors.getName(nearest);
+            colorNameDistance = namedColors.distance(lab, nearest);
+            if (metrics != null) {
+                lap(metrics, AnalyserMetrics.Stage.NAME, time);
+            }
+        } else {
+            colorName = null;
+            colorNameDistance = 0;
+        }
+        return this;
+    }
+
+    /*
+     * method to record the latency of a stage started at a time, returns
+     * the time the stage ended
+     */
+    private static long lap(AnalyserMetrics metrics, AnalyserMetrics.Stage stage, long start) {
+        long now = System.nanoTime();
+        metrics.record(stage, now - start);
+        return now;
+    }
+
+    /**
+     * @return the x coordinate the color was sampled at
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return the y coordinate the color was sampled at
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return the packed opaque rgb color
+     */
+    public int getRGB() {
+        return rgb;
+    }
+
+    /**
+     * @return the red value
+     */
+    public int getRed() {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    /**
+     * @return the green value
+     */
+    public int getGreen() {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    /**
+     * @return the blue value
+     */
+    public int getBlue() {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * @return the hue in degrees
+     */
+    public int getHue() {
+        return hue;
+    }
+
+    /**
+     * @return the saturation in percentage
+     */
+    public int getSaturation() {
+        return saturation;
+    }
+
+    /**
+     * @return the brightness in percentage
+     */
+    public int getBrightness() {
+        return brightness;
+    }
+
+    /**
+     * @return the 6 digit upper case hex color value without alpha
+     */
+    public String getHex() {
+        return ColorFormat.hex(rgb);
+    }
+
+    /**
+     * @return true if CMYK values are present
+     */
+    public boolean hasCMYK() {
+        return hasCMYK;
+    }
+
+    /**
+     * @return the cyan value in percentage
+     */
+    public int getCyan() {
+        return cyan;
+    }
+
+    /**
+     * @return the magenta value in percentage
+     */
+    public int getMagenta() {
+        return magenta;
+    }
+
+    /**
+     * @return the yellow value in percentage
+     */
+    public int getYellow() {
+        return yellow;
+    }
+
+    /**
+     * @return the key value in percentage
+     */
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * @return the CIELAB lightness L* ( 0 - 100 )
+     */
+    public float getLightness() {
+        return lab[0];
+    }
+
+    /**
+     * @return the CIELAB a* value
+     */
+    public float getLabA() {
+        return lab[1];
+    }
+
+    /**
+     * @return the CIELAB b* value
+     */
+    public float getLabB() {
+        return lab[2];
+    }
+
+    /**
+     * @return the LCh chroma
+     */
+    public float getChroma() {
+        return chroma;
+    }
+
+    /**
+     * @return the LCh hue angle in degrees
+     */
+    public float getLabHue() {
+        return labHue;
+    }
+
+    /**
+     * @return the WCAG relative luminance ( 0 - 1 )
+     */
+    public double getLuminance() {
+        return luminance;
+    }
+
+    /**
+     * @return the pinned reference color, NO_REFERENCE if there is none
+     */
+    public int getReference() {
+        return reference;
+    }
+
+    /**
+     * @return the WCAG contrast ratio against the reference color ( 1 - 21 ),
+     * 0 if there is none
+     */
+    public double getContrast() {
+        return contrast;
+    }
+
+    /**
+     * @return the name of the nearest named color, null if there is no
+     * dictionary
+     */
+    public String getColorName() {
+        return colorName;
+    }
+
+    /**
+     * @return the CIE76 difference to the nearest named color
+     */
+    public float getColorNameDistance() {
+        return colorNameDistance;
+    }
+
+    /**
+     * @return true if the sample shows the same values as the other sample,
+     * the location is not compared
+     */
+    public boolean sameColor(ColorSample other) {
+        return other != null && rgb == other.rgb && hasCMYK == other.hasCMYK
+                && cyan == other.cyan && magenta == other.magenta
+                && yellow == other.yellow && key == other.key && reference == other.reference
+                && (colorName == null ? other.colorName == null : colorName.equals(other.colorName));
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A least recently used cache of parsed ICC profiles.
+ *
+ * Each profile is kept as its {@link CmykLookupTable} ( which holds the
+ * {@link ICC_ColorSpace} ), so switching back to a cached profile neither
+ * reads the file again nor rebuilds the table. Entries are keyed by file
+ * and modification time, a changed file is loaded again. The cache is
+ * limited by an estimate of the memory the entries take.
+ *
+ * @author deepak
+ */
+public class ColorSpaceCache {
+
+    // default memory budget in megabytes
+    public static final int DEFAULT_BUDGET = 64;
+    // estimated memory a parsed profile takes per byte of profile file
+    private static final int PROFILE_OVERHEAD = 2;
+
+    /*
+     * the cache key, a profile file at a modification time
+     */
+    private static final class Key {
+
+        private final String path;
+        private final long modified;
+
+        Key(File file) {
+            this.path = file.getAbsolutePath();
+            this.modified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).path.equals(path) && ((Key) o).modified == modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + (int) (modified ^ (modified >>> 32));
+        }
+    }
+
+    /*
+     * a cache entry, the load may still be running
+     */
+    private static final class Entry {
+
+        private final FutureTask<CmykLookupTable> load;
+        // the estimated memory of the entry, 0 until loaded
+        private long weight = 0;
+
+        Entry(FutureTask<CmykLookupTable> load) {
+            this.load = load;
+        }
+    }
+    // the entries in least recently used order, guarded by this
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // the memory budget and the estimated memory used in bytes, guarded by this
+    private final long budget;
+    private long used = 0;
+    // the counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    // the executor the prefetches run on
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ColorSpaceCache");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    /**
+     * Creates a cache with the budget set by the 'wtc.profile.cache' system
+     * property ( in megabytes ) or the default budget.
+     */
+    public ColorSpaceCache() {
+        this(Integer.getInteger("wtc.profile.cache", DEFAULT_BUDGET) * 1024L * 1024L);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param budget the memory budget in bytes, the most recently used
+     * profile is kept even if it alone exceeds the budget
+     */
+    public ColorSpaceCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets a profile, loading it if it is not cached.
+     *
+     * @param file the profile file
+     * @return the lookup table of the profile
+     * @throws IOException if the profile cannot be loaded
+     * @throws InterruptedException if interrupted while waiting for the load
+     */
+    public CmykLookupTable get(File file) throws IOException, InterruptedException {
+        Entry entry = entry(file, true);
+        try {
+            return entry.load.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("could not load " + file, ex.getCause());
+        }
+    }
+
+    /**
+     * Loads a profile and builds its lookup table in the background, unless
+     * it is cached already. Prefetches do not count as hits or misses.
+     *
+     * @param file the profile file
+     */
+    public void prefetch(final File file) {
+        prefetcher.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    entry(file, false).load.get().build();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(ColorSpaceCache.class.getName()).log(Level.FINE, "could not prefetch " + file, ex);
+                }
+            }
+        });
+    }
+
+    /*
+     * method to get the entry of a file, starting the load if it is missing
+     */
+    private Entry entry(final File file, boolean count) {
+        Key key = new Key(file);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null) {
+                if (count) {
+                    hits.incrementAndGet();
+                }
+                return entry;
+            }
+            if (count) {
+                misses.incrementAndGet();
+            }
+            entry = new Entry(new FutureTask<>(new Callable<CmykLookupTable>() {
+                @Override
+                public CmykLookupTable call() throws IOException {
+                    return new CmykLookupTable(new ICC_ColorSpace(ICC_Profile.getInstance(file.getAbsolutePath())));
+                }
+            }));
+            entries.put(key, entry);
+        }
+        // load outside the lock, concurrent requests wait on the same load
+        entry.load.run();
+        loaded(key, entry, file);
+        return entry;
+    }
+
+    /*
+     * method to account for a finished load and evict entries over budget
+     */
+    private synchronized void loaded(Key key, Entry entry, File file) {
+        if (entries.get(key) != entry) {
+            // evicted while loading
+            return;
+        }
+        try {
+            entry.weight = file.length() * PROFILE_OVERHEAD + entry.load.get().getMemoryBytes();
+        } catch (InterruptedException | ExecutionException ex) {
+            // do not cache failed loads
+            entries.remove(key);
+            return;
+        }
+        used += entry.weight;
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (used > budget && eldest.hasNext()) {
+            Map.Entry<Key, Entry> candidate = eldest.next();
+            // keep the entry just loaded and the loads still running
+            if (candidate.getValue() != entry && candidate.getValue().load.isDone()) {
+                used -= candidate.getValue().weight;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the number of requests served from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests which had to load the profile
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of profiles evicted to stay within the budget
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the estimated memory taken by the cached profiles in bytes
+     */
+    public synchronized long getUsedBytes() {
+        return used;
+    }
+
+    /**
+     * @return the number of cached profiles
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d profiles, %d kB of %d kB, %d hits, %d misses, %d evictions",
+                size(), getUsedBytes() / 1024, budget / 1024, getHits(), getMisses(), getEvictions());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * A headless source backed by an ARGB pixel buffer.
+ *
+ * The pointer follows a scripted path which is replayed in a loop, one
+ * point per call to {@link #getPointerLocation(Point)}. Without a script
+ * the pointer scans the buffer row by row. Coordinates outside the buffer
+ * are clamped to its edges.
+ *
+ * Instances are meant to be driven by a single sampling thread.
+ *
+ * @author deepak
+ */
+public class ImagePixelSource implements PixelSource, PointerSource {
+
+    // the pixel buffer in packed ARGB, row major
+    private final int[] pixels;
+    // the buffer dimensions
+    private final int width;
+    private final int height;
+    // the scripted pointer path, null for a raster scan
+    private int[] pathX = null;
+    private int[] pathY = null;
+    // the position on the pointer path
+    private int position = 0;
+
+    /**
+     * Creates a source over a raw ARGB buffer, the buffer is not copied.
+     *
+     * @param pixels the pixels, row major
+     * @param width the width of the buffer
+     * @param height the height of the buffer
+     */
+    public ImagePixelSource(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("invalid buffer size " + width + "x" + height);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a source over an image. Images with an integer RGB or ARGB
+     * buffer are used directly, others are converted once.
+     *
+     * @param image the image
+     */
+    public ImagePixelSource(BufferedImage image) {
+        this(pixelsOf(image), image.getWidth(), image.getHeight());
+    }
+
+    /*
+     * method to get the packed ARGB pixels of an image
+     */
+    private static int[] pixelsOf(BufferedImage image) {
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0
+                && image.getRaster().getWidth() == image.getWidth()
+                && ((DataBufferInt) image.getRaster().getDataBuffer()).getData().length == image.getWidth() * image.getHeight()) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            if (type == BufferedImage.TYPE_INT_ARGB) {
+                return data;
+            }
+            // rgb images carry no alpha, make the pixels opaque like the screen
+            int[] opaque = new int[data.length];
+            for (int i = 0; i < data.length; i++) {
+                opaque[i] = 0xFF000000 | data[i];
+            }
+            return opaque;
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Sets the pointer path which is replayed in a loop.
+     *
+     * @param x the x coordinates of the path
+     * @param y the y coordinates of the path
+     */
+    public void setPath(int[] x, int[] y) {
+        if (x.length != y.length || x.length == 0) {
+            throw new IllegalArgumentException("path coordinates must be non empty and of equal length");
+        }
+        pathX = x;
+        pathY = y;
+        position = 0;
+    }
+
+    /**
+     * Creates a source over the same pixels and pointer path for another
+     * sampling thread, with the pointer at the start of the path.
+     *
+     * @return the new source
+     */
+    public ImagePixelSource copy() {
+        ImagePixelSource copy = new ImagePixelSource(pixels, width, height);
+        copy.pathX = pathX;
+        copy.pathY = pathY;
+        return copy;
+    }
+
+    /**
+     * Clears the pointer path, the pointer scans the buffer again.
+     */
+    public void clearPath() {
+        pathX = null;
+        pathY = null;
+        position = 0;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        return pixels[clamp(y, height) * width + clamp(x, width)];
+    }
+
+    @Override
+    public void getRegion(int x, int y, int width, int height, int[] pixels) {
+        // whether the rows lie completely inside the buffer
+        boolean inside = x >= 0 && x + width <= this.width;
+        int i = 0;
+        for (int row = 0; row < height; row++) {
+            int offset = clamp(y + row, this.height) * this.width;
+            if (inside) {
+                System.arraycopy(this.pixels, offset + x, pixels, i, width);
+                i += width;
+            } else {
+                for (int col = x; col < x + width; col++) {
+                    pixels[i++] = this.pixels[offset + clamp(col, this.width)];
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean getPointerLocation(Point location) {
+        if (pathX != null) {
+            location.x = pathX[position];
+            location.y = pathY[position];
+            if (++position == pathX.length) {
+                position = 0;
+            }
+        } else {
+            location.x = position % width;
+            location.y = position / width;
+            if (++position == width * height) {
+                position = 0;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * method to clamp a coordinate to the buffer
+     */
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+
+    /**
+     * @return the buffer width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return the buffer height
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with logarithmic buckets.
+ *
+ * Like HdrHistogram each power of two range is split into linear sub
+ * buckets, so every recorded value is kept with a relative error below
+ * 1/16 in a fixed array of about a thousand counters, and recording is an
+ * index computation and a counter update. A histogram has a single writer
+ * ( the counters are updated with ordered stores, not atomic increments ),
+ * readers on other threads see a consistent enough view for monitoring.
+ *
+ * @author deepak
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    // the number of bits of the linear sub buckets
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // the number of buckets, enough for all positive longs
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    // the name of the recorded stage
+    private final String name;
+    // the bucket counters
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    // the total count, sum and maximum, written by the single writer
+    private volatile long count = 0;
+    private volatile long sum = 0;
+    private volatile long max = 0;
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name the name of the recorded stage
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a latency, called by the single writer.
+     *
+     * @param nanos the latency in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int index = index(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /*
+     * method to get the bucket index of a value
+     */
+    private static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + mantissa;
+    }
+
+    /*
+     * method to get the largest value of a bucket
+     */
+    private static long highest(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long lowest = (long) (SUB_COUNT + index % SUB_COUNT) << (exponent - SUB_BITS);
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public double getMean() {
+        long n = count;
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    @Override
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets a percentile.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the largest value of the bucket holding the percentile, at
+     * most the maximum, 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highest(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public long getP50() {
+        return getPercentile(50);
+    }
+
+    @Override
+    public long getP90() {
+        return getPercentile(90);
+    }
+
+    @Override
+    public long getP99() {
+        return getPercentile(99);
+    }
+
+    @Override
+    public long getP999() {
+        return getPercentile(99.9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s count %9d  mean %9.0f  p50 %8d  p90 %8d  p99 %8d  p99.9 %8d  max %9d ns",
+                name, count, getMean(), getP50(), getP90(), getP99(), getP999(), max);
+    }
+}
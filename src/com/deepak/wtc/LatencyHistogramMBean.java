@@ -0,0 +1,72 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * The management interface of a {@link LatencyHistogram}, all latencies in
+ * nanoseconds.
+ *
+ * @author deepak
+ */
+public interface LatencyHistogramMBean {
+
+    /**
+     * @return the name of the recorded stage
+     */
+    String getName();
+
+    /**
+     * @return the number of recorded latencies
+     */
+    long getCount();
+
+    /**
+     * @return the mean latency
+     */
+    double getMean();
+
+    /**
+     * @return the largest latency
+     */
+    long getMax();
+
+    /**
+     * @return the median latency
+     */
+    long getP50();
+
+    /**
+     * @return the 90th percentile latency
+     */
+    long getP90();
+
+    /**
+     * @return the 99th percentile latency
+     */
+    long getP99();
+
+    /**
+     * @return the 99.9th percentile latency
+     */
+    long getP999();
+}
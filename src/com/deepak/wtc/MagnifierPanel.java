@@ -0,0 +1,193 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.JComponent;
+
+/**
+ * A loupe showing the pixels around the pointer enlarged.
+ *
+ * The sampling thread captures the square around the pointer into a buffer
+ * from {@link #acquire()} and publishes it. The event dispatch thread
+ * takes the latest buffer in {@link #update()}, copies it into a reused
+ * image and repaints just this component, where the image is scaled up
+ * with nearest neighbour interpolation and a crosshair marks the sampled
+ * pixel or region. The buffers are recycled like the samples of the
+ * {@link SampleExchange}, so showing a frame allocates nothing.
+ *
+ * @author deepak
+ */
+public class MagnifierPanel extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    // default number of pixels shown across
+    public static final int DEFAULT_SIZE = 15;
+    // default zoom factor
+    public static final int DEFAULT_ZOOM = 10;
+    // the pixels shown across and the zoom factor
+    private final int size;
+    private final int zoom;
+    // the shown image and its pixel buffer
+    private final BufferedImage image;
+    private final int[] imagePixels;
+    // the latest published buffer, null once taken
+    private final AtomicReference<int[]> latest = new AtomicReference<>();
+    // a buffer given back by the event dispatch thread
+    private final AtomicReference<int[]> recycled = new AtomicReference<>();
+    // the buffer the sampling thread fills next, only used by that thread
+    private int[] spare = null;
+    // the size of the sampled region marked by the crosshair
+    private volatile int regionSize = 1;
+    // whether the loupe is on, read by the sampling thread
+    private volatile boolean active = true;
+
+    /**
+     * Creates a loupe with the default size and zoom.
+     */
+    public MagnifierPanel() {
+        this(DEFAULT_SIZE, DEFAULT_ZOOM);
+    }
+
+    /**
+     * Creates a loupe.
+     *
+     * @param size the pixels shown across, rounded up to an odd number
+     * @param zoom the zoom factor
+     */
+    public MagnifierPanel(int size, int zoom) {
+        if (size < 1 || zoom < 1) {
+            throw new IllegalArgumentException("invalid loupe " + size + " x" + zoom);
+        }
+        this.size = size | 1;
+        this.zoom = zoom;
+        image = new BufferedImage(this.size, this.size, BufferedImage.TYPE_INT_RGB);
+        imagePixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        setOpaque(true);
+        Dimension dimension = new Dimension(this.size * zoom, this.size * zoom);
+        setPreferredSize(dimension);
+        setMinimumSize(dimension);
+        setMaximumSize(dimension);
+    }
+
+    /**
+     * @return the pixels shown across
+     */
+    public int getCaptureSize() {
+        return size;
+    }
+
+    /**
+     * Turns the loupe on or off, while off the sampling thread should not
+     * capture for it.
+     *
+     * @param active true to show the pixels
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * @return true if the loupe is on
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Gets the buffer to capture into next, called by the sampling thread.
+     *
+     * @return the buffer of size * size pixels
+     */
+    public int[] acquire() {
+        if (spare == null) {
+            spare = recycled.getAndSet(null);
+            if (spare == null) {
+                spare = new int[size * size];
+            }
+        }
+        return spare;
+    }
+
+    /**
+     * Publishes the buffer last returned by {@link #acquire()}, called by
+     * the sampling thread.
+     *
+     * @param regionSize the size of the sampled region to mark
+     */
+    public void publish(int regionSize) {
+        if (spare == null) {
+            throw new IllegalStateException("no buffer acquired");
+        }
+        this.regionSize = regionSize;
+        spare = latest.getAndSet(spare);
+    }
+
+    /**
+     * Shows the latest published buffer, called on the event dispatch
+     * thread.
+     */
+    public void update() {
+        int[] pixels = latest.getAndSet(null);
+        if (pixels == null) {
+            return;
+        }
+        System.arraycopy(pixels, 0, imagePixels, 0, imagePixels.length);
+        recycled.set(pixels);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int side = size * zoom;
+        // center the image in the component
+        int x = (getWidth() - side) / 2;
+        int y = (getHeight() - side) / 2;
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2.drawImage(image, x, y, side, side, null);
+        // mark the sampled region in a color standing out from its center
+        int center = imagePixels[imagePixels.length / 2];
+        int luma = ((center >> 16) & 0xFF) * 299 + ((center >> 8) & 0xFF) * 587 + (center & 0xFF) * 114;
+        g.setColor(luma > 128000 ? Color.BLACK : Color.WHITE);
+        int region = Math.min(regionSize, size);
+        int offset = (size - region) / 2 * zoom;
+        g.drawRect(x + offset, y + offset, region * zoom - 1, region * zoom - 1);
+        // the crosshair lines up to the region
+        int middle = side / 2;
+        g.drawLine(x + middle, y, x + middle, y + offset - 1);
+        g.drawLine(x + middle, y + offset + region * zoom, x + middle, y + side - 1);
+        g.drawLine(x, y + middle, x + offset - 1, y + middle);
+        g.drawLine(x + offset + region * zoom, y + middle, x + side - 1, y + middle);
+    }
+}
@@ -0,0 +1,407 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A dictionary of named colors indexed for nearest color lookups.
+ *
+ * The colors are kept in a k-d tree over CIELAB, stored implicitly in
+ * arrays ( the node of a range is its middle element ), so the euclidean
+ * nearest neighbour is the color with the smallest CIE76 difference. A
+ * lookup allocates nothing and visits a few dozen nodes even for tens of
+ * thousands of colors.
+ *
+ * Dictionaries are text files with one "name,hex" line per color, lines
+ * which do not parse ( like a header ) are skipped. The built index can be
+ * saved to a binary file which is memory mapped for a quick reload.
+ *
+ * @author deepak
+ */
+public class NamedColorIndex {
+
+    // the built in dictionary of the CSS named colors
+    public static final String DEFAULT_DICTIONARY = "colors.csv";
+    // the binary index file signature and version
+    private static final int MAGIC = 0x57544343;
+    private static final int VERSION = 1;
+    // the nodes in tree order, the L*, a* and b* values are interleaved
+    private final float[] lab;
+    private final int[] rgb;
+    private final String[] names;
+    // the split axis of each node
+    private final byte[] axis;
+
+    private NamedColorIndex(float[] lab, int[] rgb, String[] names, byte[] axis) {
+        this.lab = lab;
+        this.rgb = rgb;
+        this.names = names;
+        this.axis = axis;
+    }
+
+    /**
+     * Builds the index of the built in CSS color names.
+     *
+     * @return the index
+     * @throws IOException if the dictionary cannot be read
+     */
+    public static NamedColorIndex loadDefault() throws IOException {
+        try (InputStream in = NamedColorIndex.class.getResourceAsStream(DEFAULT_DICTIONARY)) {
+            if (in == null) {
+                throw new IOException("missing " + DEFAULT_DICTIONARY);
+            }
+            return read(in);
+        }
+    }
+
+    /**
+     * Loads a dictionary. The index is kept in a binary file next to the
+     * dictionary ( with the extension '.idx' ) and reused while it is newer
+     * than the dictionary.
+     *
+     * @param dictionary the dictionary file
+     * @return the index
+     * @throws IOException if the dictionary cannot be read
+     */
+    public static NamedColorIndex load(File dictionary) throws IOException {
+        File cache = new File(dictionary.getPath() + ".idx");
+        if (cache.isFile() && cache.lastModified() >= dictionary.lastModified()) {
+            try {
+                return map(cache);
+            } catch (IOException ex) {
+                Logger.getLogger(NamedColorIndex.class.getName()).log(Level.WARNING, "rebuilding broken color index " + cache, ex);
+            }
+        }
+        NamedColorIndex index;
+        try (InputStream in = new FileInputStream(dictionary)) {
+            index = read(in);
+        }
+        try {
+            index.save(cache);
+        } catch (IOException ex) {
+            Logger.getLogger(NamedColorIndex.class.getName()).log(Level.WARNING, "could not save color index " + cache, ex);
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index of a dictionary.
+     *
+     * @param in the dictionary text
+     * @return the index
+     * @throws IOException if the dictionary cannot be read
+     */
+    public static NamedColorIndex read(InputStream in) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Integer> colors = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int comma = line.lastIndexOf(',');
+            if (comma <= 0) {
+                continue;
+            }
+            String hex = line.substring(comma + 1).trim();
+            if (hex.startsWith("#")) {
+                hex = hex.substring(1);
+            }
+            if (hex.length() != 6) {
+                continue;
+            }
+            try {
+                colors.add(0xFF000000 | Integer.parseInt(hex, 16));
+                names.add(line.substring(0, comma).trim());
+            } catch (NumberFormatException ex) {
+                // not a color line
+            }
+        }
+        int n = names.size();
+        if (n == 0) {
+            throw new IOException("no colors in the dictionary");
+        }
+        int[] rgb = new int[n];
+        float[] lab = new float[3 * n];
+        float[] color = new float[3];
+        for (int i = 0; i < n; i++) {
+            rgb[i] = colors.get(i);
+            CieLab.fromRGB(rgb[i], color);
+            System.arraycopy(color, 0, lab, 3 * i, 3);
+        }
+        return build(lab, rgb, names.toArray(new String[n]));
+    }
+
+    /*
+     * method to reorder the colors into an implicit k-d tree
+     */
+    private static NamedColorIndex build(float[] lab, int[] rgb, String[] names) {
+        int n = rgb.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        byte[] axes = new byte[n];
+        build(lab, order, axes, 0, n);
+        float[] treeLab = new float[3 * n];
+        int[] treeRGB = new int[n];
+        String[] treeNames = new String[n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(lab, 3 * order[i], treeLab, 3 * i, 3);
+            treeRGB[i] = rgb[order[i]];
+            treeNames[i] = names[order[i]];
+        }
+        return new NamedColorIndex(treeLab, treeRGB, treeNames, axes);
+    }
+
+    /*
+     * method to build the subtree of a range, splitting at the middle along
+     * the axis of the widest spread
+     */
+    private static void build(float[] lab, int[] order, byte[] axes, int from, int to) {
+        if (to - from <= 1) {
+            return;
+        }
+        int split = 0;
+        float widest = -1;
+        for (int a = 0; a < 3; a++) {
+            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                float v = lab[3 * order[i] + a];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                split = a;
+            }
+        }
+        int middle = (from + to) >>> 1;
+        select(lab, order, split, from, to - 1, middle);
+        axes[middle] = (byte) split;
+        build(lab, order, axes, from, middle);
+        build(lab, order, axes, middle + 1, to);
+    }
+
+    /*
+     * method to partially sort a range so the k-th element is in place and
+     * all elements before it are not larger along the axis ( quickselect )
+     */
+    private static void select(float[] lab, int[] order, int a, int left, int right, int k) {
+        while (right > left) {
+            float pivot = lab[3 * order[(left + right) >>> 1] + a];
+            int i = left, j = right;
+            while (i <= j) {
+                while (lab[3 * order[i] + a] < pivot) {
+                    i++;
+                }
+                while (lab[3 * order[j] + a] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = order[i];
+                    order[i++] = order[j];
+                    order[j--] = t;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of colors
+     */
+    public int size() {
+        return rgb.length;
+    }
+
+    /**
+     * @param i the index of a color
+     * @return the color name
+     */
+    public String getName(int i) {
+        return names[i];
+    }
+
+    /**
+     * @param i the index of a color
+     * @return the packed opaque rgb color
+     */
+    public int getRGB(int i) {
+        return rgb[i];
+    }
+
+    /**
+     * Finds the color with the smallest CIE76 difference to a color.
+     *
+     * @param lab the CIELAB color
+     * @return the index of the nearest color
+     */
+    public int nearest(float[] lab) {
+        return nearest(lab[0], lab[1], lab[2], 0, rgb.length, -1, Float.MAX_VALUE);
+    }
+
+    /**
+     * Gets the CIE76 difference between a color and a dictionary color.
+     *
+     * @param lab the CIELAB color
+     * @param i the index of the dictionary color
+     * @return the difference
+     */
+    public float distance(float[] lab, int i) {
+        return (float) Math.sqrt(squaredDistance(lab[0], lab[1], lab[2], i));
+    }
+
+    /*
+     * method to search the subtree of a range, returns the best index found
+     * the best squared distance is passed down to prune the search
+     */
+    private int nearest(float l, float a, float b, int from, int to, int best, float bestDistance) {
+        if (from >= to) {
+            return best;
+        }
+        int node = (from + to) >>> 1;
+        float d = squaredDistance(l, a, b, node);
+        if (d < bestDistance) {
+            best = node;
+            bestDistance = d;
+        }
+        int split = axis[node];
+        float diff = (split == 0 ? l : split == 1 ? a : b) - lab[3 * node + split];
+        // search the side of the query first, the other side only if the
+        // splitting plane is closer than the best color found
+        if (diff < 0) {
+            best = nearest(l, a, b, from, node, best, bestDistance);
+            bestDistance = squaredDistance(l, a, b, best);
+            if (diff * diff < bestDistance) {
+                best = nearest(l, a, b, node + 1, to, best, bestDistance);
+            }
+        } else {
+            best = nearest(l, a, b, node + 1, to, best, bestDistance);
+            bestDistance = squaredDistance(l, a, b, best);
+            if (diff * diff < bestDistance) {
+                best = nearest(l, a, b, from, node, best, bestDistance);
+            }
+        }
+        return best;
+    }
+
+    /*
+     * method to get the squared CIE76 difference to a node
+     */
+    private float squaredDistance(float l, float a, float b, int node) {
+        float dl = l - lab[3 * node];
+        float da = a - lab[3 * node + 1];
+        float db = b - lab[3 * node + 2];
+        return dl * dl + da * da + db * db;
+    }
+
+    /**
+     * Saves the index in the binary format read by {@link #map(File)}.
+     *
+     * @param file the index file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(rgb.length);
+            // the fixed size node records first, then the names
+            for (int i = 0; i < rgb.length; i++) {
+                out.writeFloat(lab[3 * i]);
+                out.writeFloat(lab[3 * i + 1]);
+                out.writeFloat(lab[3 * i + 2]);
+                out.writeInt(rgb[i]);
+                out.writeByte(axis[i]);
+            }
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Loads an index saved with {@link #save(File)} by memory mapping it.
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file cannot be read or is not an index
+     */
+    public static NamedColorIndex map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("not a color index: " + file);
+            }
+            int n = buffer.getInt();
+            if (n <= 0 || (long) n * 17 > buffer.remaining()) {
+                throw new IOException("truncated color index: " + file);
+            }
+            float[] lab = new float[3 * n];
+            int[] rgb = new int[n];
+            byte[] axis = new byte[n];
+            String[] names = new String[n];
+            for (int i = 0; i < n; i++) {
+                lab[3 * i] = buffer.getFloat();
+                lab[3 * i + 1] = buffer.getFloat();
+                lab[3 * i + 2] = buffer.getFloat();
+                rgb[i] = buffer.getInt();
+                axis[i] = buffer.get();
+            }
+            for (int i = 0; i < n; i++) {
+                byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return new NamedColorIndex(lab, rgb, names, axis);
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("truncated color index: " + file, ex);
+        }
+    }
+}
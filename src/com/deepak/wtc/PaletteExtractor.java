@@ -0,0 +1,553 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Extracts the dominant colors of a buffer of packed ARGB pixels.
+ *
+ * The pixels are first counted into a histogram of 32768 bins ( 5 bits per
+ * channel ) which also sums the exact colors falling into each bin. The
+ * bins are then clustered with a weighted k-means, so the clustering cost
+ * depends on the number of distinct bins instead of the number of pixels.
+ * Both passes run in parallel on a fork join pool for large buffers.
+ *
+ * The histogram and clustering buffers are kept between extractions, and
+ * the histograms are left clear, so a small buffer only touches the bins
+ * of its own colors. Extracting into a reused palette allocates nothing
+ * once the buffers have grown. An extractor must not be used by more than
+ * one thread at a time.
+ *
+ * @author deepak
+ */
+public class PaletteExtractor {
+
+    // default number of palette colors
+    public static final int DEFAULT_COLORS = 5;
+    // number of bits kept per channel in the histogram
+    private static final int BITS = 5;
+    // number of histogram bins
+    private static final int BINS = 1 << (3 * BITS);
+    // smallest number of pixels worth a parallel histogram task
+    private static final int MIN_PIXELS_PER_TASK = 1 << 18;
+    // smallest number of bins worth a parallel assignment task
+    private static final int MIN_BINS_PER_TASK = 2048;
+    // maximum number of k-means iterations
+    private static final int MAX_ITERATIONS = 24;
+    // largest number of pixels whose bins are found through the pixels
+    // instead of a scan of all bins
+    private static final int MAX_PIXELS_TO_GATHER = BINS / 8;
+
+    /**
+     * A palette, the colors ordered by the number of pixels they stand for.
+     */
+    public static final class Palette {
+
+        // the packed opaque rgb colors
+        private final int[] colors;
+        // the number of pixels of each color
+        private final long[] counts;
+        // the number of colors
+        private int size = 0;
+
+        Palette(int capacity) {
+            this.colors = new int[capacity];
+            this.counts = new long[capacity];
+        }
+
+        /**
+         * @return the number of colors, less than requested if the pixels
+         * hold fewer distinct colors
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param i the index of the color, 0 is the most dominant
+         * @return the packed opaque rgb color
+         */
+        public int getColor(int i) {
+            return colors[i];
+        }
+
+        /**
+         * @param i the index of the color
+         * @return the number of pixels closest to the color
+         */
+        public long getCount(int i) {
+            return counts[i];
+        }
+
+        /**
+         * @return the most dominant color, black for an empty palette
+         */
+        public int getDominant() {
+            return size == 0 ? 0xFF000000 : colors[0];
+        }
+    }
+    // the number of palette colors
+    private final int colors;
+    // the pool the parallel passes run on
+    private final ForkJoinPool pool;
+    // the histograms, one set per parallel task, reused between extractions
+    // and clear outside of them
+    private int[][] counts = new int[0][];
+    private long[][] sums = new long[0][];
+    // the bins used by a small extraction, one bit per bin
+    private final long[] touched = new long[BINS / 64];
+    // the mean colors and weights of the used bins and their clusters,
+    // grown as needed
+    private float[] points = new float[0];
+    private int[] weights = new int[0];
+    private int[] assignment = new int[0];
+    private float[] nearest = new float[0];
+    // the cluster centers, their weighted sums, pixel counts and order
+    private final float[] centers;
+    private final double[] totals;
+    private final long[] centerCounts;
+    private final int[] order;
+
+    /*
+     * the pool shared by the extractors created without a pool of their own
+     */
+    private static final class SharedPool {
+
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Creates an extractor on a pool shared by all such extractors, with one
+     * thread per processor.
+     *
+     * @param colors the number of palette colors
+     */
+    public PaletteExtractor(int colors) {
+        this(colors, SharedPool.POOL);
+    }
+
+    /**
+     * Creates an extractor.
+     *
+     * @param colors the number of palette colors
+     * @param pool the pool to run the parallel passes on, null to extract on
+     * the calling thread only
+     */
+    public PaletteExtractor(int colors, ForkJoinPool pool) {
+        if (colors < 1) {
+            throw new IllegalArgumentException("invalid number of colors " + colors);
+        }
+        this.colors = colors;
+        this.pool = pool;
+        centers = new float[3 * colors];
+        totals = new double[4 * colors];
+        centerCounts = new long[colors];
+        order = new int[colors];
+    }
+
+    /**
+     * @return the number of palette colors
+     */
+    public int getColors() {
+        return colors;
+    }
+
+    /**
+     * Extracts the palette of an image.
+     *
+     * @param image the image
+     * @return the palette
+     */
+    public Palette extract(BufferedImage image) {
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        return extract(pixels, 0, pixels.length);
+    }
+
+    /**
+     * Extracts the palette of a range of pixels, the alpha is ignored.
+     *
+     * @param pixels the packed ARGB pixels
+     * @param offset the first pixel
+     * @param length the number of pixels
+     * @return the palette
+     */
+    public Palette extract(int[] pixels, int offset, int length) {
+        return extract(pixels, offset, length, new Palette(colors));
+    }
+
+    /*
+     * method to extract the palette of a range of pixels into a palette
+     * holding at least the number of colors, for callers reusing a palette
+     */
+    Palette extract(int[] pixels, int offset, int length, Palette palette) {
+        if (palette.colors.length < colors) {
+            throw new IllegalArgumentException("the palette holds less than " + colors + " colors");
+        }
+        // checked up front, a failure while counting would leave the histograms dirty
+        if (offset < 0 || length < 0 || length > pixels.length - offset) {
+            throw new IndexOutOfBoundsException("invalid pixel range " + offset + ", " + length);
+        }
+        int tasks = pool == null ? 1
+                : Math.max(1, Math.min(pool.getParallelism(), length / MIN_PIXELS_PER_TASK));
+        ensureHistograms(tasks);
+        ensurePoints(Math.min(length, BINS));
+        int used;
+        if (tasks == 1) {
+            count(pixels, offset, length, counts[0], sums[0]);
+            used = length <= MAX_PIXELS_TO_GATHER ? gatherPixels(pixels, offset, length) : gatherBins();
+        } else {
+            pool.invoke(new HistogramTask(pixels, offset, length, tasks, 0, tasks));
+            // merge the task histograms into the first one, clearing them
+            for (int t = 1; t < tasks; t++) {
+                int[] c = counts[t];
+                long[] s = sums[t];
+                for (int bin = 0; bin < BINS; bin++) {
+                    counts[0][bin] += c[bin];
+                    c[bin] = 0;
+                }
+                for (int i = 0; i < 3 * BINS; i++) {
+                    sums[0][i] += s[i];
+                    s[i] = 0;
+                }
+            }
+            used = gatherBins();
+        }
+        cluster(used, palette);
+        return palette;
+    }
+
+    /*
+     * method to allocate the histograms of the given number of tasks
+     */
+    private void ensureHistograms(int tasks) {
+        if (counts.length < tasks) {
+            int[][] c = Arrays.copyOf(counts, tasks);
+            long[][] s = Arrays.copyOf(sums, tasks);
+            for (int t = counts.length; t < tasks; t++) {
+                c[t] = new int[BINS];
+                s[t] = new long[3 * BINS];
+            }
+            counts = c;
+            sums = s;
+        }
+    }
+
+    /*
+     * method to grow the clustering buffers to the given number of points
+     */
+    private void ensurePoints(int capacity) {
+        if (weights.length < capacity) {
+            points = new float[3 * capacity];
+            weights = new int[capacity];
+            assignment = new int[capacity];
+            nearest = new float[capacity];
+        }
+    }
+
+    /*
+     * method to take the used bins of the first histogram as points,
+     * clearing them. the bins are found through the pixels, and taken in
+     * the order of the bins like by a scan of all bins
+     */
+    private int gatherPixels(int[] pixels, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int p = pixels[i];
+            int bin = ((p >> 16) & 0xFF) >> (8 - BITS) << (2 * BITS) | ((p >> 8) & 0xFF) >> (8 - BITS) << BITS
+                    | (p & 0xFF) >> (8 - BITS);
+            touched[bin >>> 6] |= 1L << bin;
+        }
+        int used = 0;
+        for (int word = 0; word < touched.length; word++) {
+            long bits = touched[word];
+            touched[word] = 0;
+            while (bits != 0) {
+                int bin = word << 6 | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                take(bin, used++);
+            }
+        }
+        return used;
+    }
+
+    /*
+     * method to take the used bins of the first histogram as points,
+     * clearing them, by a scan of all bins
+     */
+    private int gatherBins() {
+        int[] c = counts[0];
+        int used = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            if (c[bin] != 0) {
+                take(bin, used++);
+            }
+        }
+        return used;
+    }
+
+    /*
+     * method to take a used bin of the first histogram as a point, clearing it
+     */
+    private void take(int bin, int i) {
+        int[] c = counts[0];
+        long[] s = sums[0];
+        int n = c[bin];
+        points[3 * i] = (float) s[3 * bin] / n;
+        points[3 * i + 1] = (float) s[3 * bin + 1] / n;
+        points[3 * i + 2] = (float) s[3 * bin + 2] / n;
+        weights[i] = n;
+        c[bin] = 0;
+        s[3 * bin] = 0;
+        s[3 * bin + 1] = 0;
+        s[3 * bin + 2] = 0;
+    }
+
+    /*
+     * method to count a range of pixels into a histogram
+     */
+    private static void count(int[] pixels, int offset, int length, int[] counts, long[] sums) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int p = pixels[i];
+            int r = (p >> 16) & 0xFF;
+            int g = (p >> 8) & 0xFF;
+            int b = p & 0xFF;
+            int bin = (r >> (8 - BITS)) << (2 * BITS) | (g >> (8 - BITS)) << BITS | (b >> (8 - BITS));
+            counts[bin]++;
+            sums[3 * bin] += r;
+            sums[3 * bin + 1] += g;
+            sums[3 * bin + 2] += b;
+        }
+    }
+
+    /*
+     * the fork join task counting a slice of the pixels per histogram
+     */
+    private final class HistogramTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] pixels;
+        private final int offset;
+        private final int length;
+        private final int slices;
+        // the range of slices, each slice has its own histogram
+        private final int first;
+        private final int last;
+
+        HistogramTask(int[] pixels, int offset, int length, int slices, int first, int last) {
+            this.pixels = pixels;
+            this.offset = offset;
+            this.length = length;
+            this.slices = slices;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new HistogramTask(pixels, offset, length, slices, first, middle),
+                        new HistogramTask(pixels, offset, length, slices, middle, last));
+                return;
+            }
+            int from = (int) ((long) length * first / slices);
+            int to = (int) ((long) length * last / slices);
+            count(pixels, offset + from, to - from, counts[first], sums[first]);
+        }
+    }
+
+    /*
+     * method to cluster the gathered points into the palette colors
+     */
+    private void cluster(int used, Palette palette) {
+        int k = Math.min(colors, used);
+        initialCenters(used, k);
+        Arrays.fill(assignment, 0, used, 0);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            boolean moved = assign(used, k);
+            if (!moved && iteration > 0) {
+                break;
+            }
+            // move the centers to the weighted mean of their points
+            Arrays.fill(totals, 0, 4 * k, 0);
+            for (int i = 0; i < used; i++) {
+                int c = 4 * assignment[i];
+                double w = weights[i];
+                totals[c] += w * points[3 * i];
+                totals[c + 1] += w * points[3 * i + 1];
+                totals[c + 2] += w * points[3 * i + 2];
+                totals[c + 3] += w;
+            }
+            for (int c = 0; c < k; c++) {
+                double w = totals[4 * c + 3];
+                if (w > 0) {
+                    centers[3 * c] = (float) (totals[4 * c] / w);
+                    centers[3 * c + 1] = (float) (totals[4 * c + 1] / w);
+                    centers[3 * c + 2] = (float) (totals[4 * c + 2] / w);
+                }
+            }
+        }
+        // count the pixels per center and order the centers by count, a
+        // stable insertion sort as there are only a few
+        Arrays.fill(centerCounts, 0, k, 0);
+        for (int i = 0; i < used; i++) {
+            centerCounts[assignment[i]] += weights[i];
+        }
+        for (int c = 0; c < k; c++) {
+            int j = c;
+            for (; j > 0 && centerCounts[order[j - 1]] < centerCounts[c]; j--) {
+                order[j] = order[j - 1];
+            }
+            order[j] = c;
+        }
+        for (int i = 0; i < k; i++) {
+            int c = order[i];
+            palette.colors[i] = 0xFF000000 | Math.round(centers[3 * c]) << 16
+                    | Math.round(centers[3 * c + 1]) << 8 | Math.round(centers[3 * c + 2]);
+            palette.counts[i] = centerCounts[c];
+        }
+        palette.size = k;
+    }
+
+    /*
+     * method to pick the initial centers, the heaviest bin first and then
+     * repeatedly the bin with the largest weighted distance to the picked
+     * centers. deterministic, so the same pixels give the same palette
+     */
+    private void initialCenters(int used, int k) {
+        Arrays.fill(nearest, 0, used, Float.MAX_VALUE);
+        int pick = 0;
+        for (int i = 1; i < used; i++) {
+            if (weights[i] > weights[pick]) {
+                pick = i;
+            }
+        }
+        for (int c = 0; c < k; c++) {
+            System.arraycopy(points, 3 * pick, centers, 3 * c, 3);
+            double best = -1;
+            int next = 0;
+            for (int i = 0; i < used; i++) {
+                nearest[i] = Math.min(nearest[i], distance(points, 3 * i, centers, 3 * c));
+                double score = (double) nearest[i] * weights[i];
+                if (score > best) {
+                    best = score;
+                    next = i;
+                }
+            }
+            pick = next;
+        }
+    }
+
+    /*
+     * method to assign every point to its nearest center, in parallel for
+     * many points. returns true if any assignment changed
+     */
+    private boolean assign(int used, int k) {
+        int tasks = pool == null ? 1
+                : Math.max(1, Math.min(pool.getParallelism(), used / MIN_BINS_PER_TASK));
+        if (tasks == 1) {
+            return assign(points, centers, k, assignment, 0, used);
+        }
+        AssignTask task = new AssignTask(points, centers, k, assignment, 0, used, used / tasks);
+        pool.invoke(task);
+        return task.moved;
+    }
+
+    /*
+     * method to assign a range of points to their nearest center
+     */
+    private static boolean assign(float[] points, float[] centers, int k, int[] assignment, int from, int to) {
+        boolean moved = false;
+        for (int i = from; i < to; i++) {
+            int best = 0;
+            float bestDistance = Float.MAX_VALUE;
+            for (int c = 0; c < k; c++) {
+                float d = distance(points, 3 * i, centers, 3 * c);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = c;
+                }
+            }
+            if (assignment[i] != best) {
+                assignment[i] = best;
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /*
+     * the fork join task assigning a range of points
+     */
+    private static final class AssignTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final float[] points;
+        private final float[] centers;
+        private final int k;
+        private final int[] assignment;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        // whether any assignment changed
+        private boolean moved = false;
+
+        AssignTask(float[] points, float[] centers, int k, int[] assignment, int from, int to, int threshold) {
+            this.points = points;
+            this.centers = centers;
+            this.k = k;
+            this.assignment = assignment;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                AssignTask left = new AssignTask(points, centers, k, assignment, from, middle, threshold);
+                AssignTask right = new AssignTask(points, centers, k, assignment, middle, to, threshold);
+                invokeAll(left, right);
+                moved = left.moved || right.moved;
+            } else {
+                moved = assign(points, centers, k, assignment, from, to);
+            }
+        }
+    }
+
+    /*
+     * method to get the squared distance of two colors
+     */
+    private static float distance(float[] a, int i, float[] b, int j) {
+        float dr = a[i] - b[j];
+        float dg = a[i + 1] - b[j + 1];
+        float db = a[i + 2] - b[j + 2];
+        return dr * dr + dg * dg + db * db;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+/**
+ * A source of pixel colors in screen coordinates.
+ *
+ * The colors are returned as packed 0xAARRGGBB integers ( the same layout
+ * as {@link java.awt.Color#getRGB()} ) so no objects are created per pixel.
+ *
+ * @author deepak
+ */
+public interface PixelSource {
+
+    /**
+     * Gets the color of a single pixel.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the packed ARGB color of the pixel
+     */
+    int getPixel(int x, int y);
+
+    /**
+     * Gets the colors of a rectangular region in one read.
+     *
+     * @param x the x coordinate of the top left corner
+     * @param y the y coordinate of the top left corner
+     * @param width the width of the region
+     * @param height the height of the region
+     * @param pixels the buffer to store the packed ARGB colors in, row
+     * major, at least width * height long
+     */
+    void getRegion(int x, int y, int width, int height, int[] pixels);
+}
@@ -0,0 +1,42 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.Point;
+
+/**
+ * A source of pointer locations in screen coordinates.
+ *
+ * @author deepak
+ */
+public interface PointerSource {
+
+    /**
+     * Gets the current pointer location.
+     *
+     * @param location the point to store the location in
+     * @return true if the location was stored, false if there is currently
+     * no pointer location available
+     */
+    boolean getPointerLocation(Point location);
+}
@@ -0,0 +1,556 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.AWTException;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A set of fixed probe points watched across several screens.
+ *
+ * The probes are grouped by the screen they are on. Each sample reads one
+ * capture of the bounding box of a screen's probes, the screens in
+ * parallel through their own robots, and then reads all probes out of the
+ * captures. The listeners are told about every probe whose color changed.
+ *
+ * @author deepak
+ */
+public class ProbeSet {
+
+    // the largest bounding box read with one capture, larger boxes are read probe by probe
+    private static final int MAX_CAPTURE = 1 << 20;
+
+    /**
+     * The listener of the probe color changes.
+     */
+    public interface Listener {
+
+        /**
+         * Called on the sampling thread when the color of a probe changed,
+         * also for the first sample of a probe.
+         *
+         * @param probe the probe, holding the new color
+         * @param previousRGB the previous packed rgb color, 0 for the first
+         * sample
+         */
+        void probeChanged(Probe probe, int previousRGB);
+    }
+
+    /**
+     * A probe point.
+     */
+    public static class Probe {
+
+        // the name, the location and the size of the averaged square
+        private final String name;
+        private final int x;
+        private final int y;
+        private final int size;
+        // the last sampled color, 0 before the first sample
+        private volatile int rgb = 0;
+        // the number of color changes
+        private volatile long changes = 0;
+        // the change detector track, null without a detector
+        private ChangeDetector.Track track = null;
+
+        private Probe(String name, int x, int y, int size) {
+            this.name = name;
+            this.x = x;
+            this.y = y;
+            this.size = size;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the x coordinate in the virtual screen
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return the y coordinate in the virtual screen
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return the size of the square averaged around the point
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the last sampled packed rgb color, 0 before the first
+         * sample
+         */
+        public int getRGB() {
+            return rgb;
+        }
+
+        /**
+         * @return the number of color changes, including the first sample
+         */
+        public long getChanges() {
+            return changes;
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + x + ", " + y + ")";
+        }
+    }
+
+    /*
+     * a screen and its probes
+     */
+    private static class Screen implements Callable<Void> {
+
+        // the screen bounds in the virtual screen
+        private final Rectangle bounds;
+        // the source reading the screen
+        private final PixelSource source;
+        // the probes on the screen
+        private final List<Probe> probes = new ArrayList<>();
+        // the bounding box of the probe squares, clipped to the screen
+        private final Rectangle box = new Rectangle();
+        // the capture of the bounding box, null if the probes are read one by one
+        private int[] capture = null;
+        // the sampled colors, in the order of the probes
+        private int[] colors = new int[0];
+        // the pixels of a probe square read one by one, and the square
+        // clipped to the screen
+        private int[] square = new int[0];
+        private final Rectangle clipped = new Rectangle();
+
+        private Screen(Rectangle bounds, PixelSource source) {
+            this.bounds = new Rectangle(bounds);
+            this.source = source;
+        }
+
+        /*
+         * method to update the bounding box once the probes changed
+         */
+        private void layout() {
+            box.setBounds(0, 0, 0, 0);
+            for (int i = 0; i < probes.size(); i++) {
+                Probe probe = probes.get(i);
+                Rectangle r = new Rectangle(probe.x - probe.size / 2, probe.y - probe.size / 2, probe.size, probe.size);
+                if (i == 0) {
+                    box.setBounds(r);
+                } else {
+                    box.add(r);
+                }
+            }
+            Rectangle.intersect(box, bounds, box);
+            long area = (long) box.width * box.height;
+            capture = area > 0 && area <= MAX_CAPTURE ? new int[(int) area] : null;
+            colors = new int[probes.size()];
+        }
+
+        @Override
+        public Void call() {
+            if (capture != null) {
+                // one screen read for all probes of the screen
+                source.getRegion(box.x, box.y, box.width, box.height, capture);
+                for (int i = 0; i < colors.length; i++) {
+                    Probe probe = probes.get(i);
+                    colors[i] = average(capture, box.width, probe.x - probe.size / 2 - box.x,
+                            probe.y - probe.size / 2 - box.y, probe.size, box);
+                }
+            } else {
+                for (int i = 0; i < colors.length; i++) {
+                    Probe probe = probes.get(i);
+                    // only the part of the square on the screen is read, like the bounding box
+                    clipped.setBounds(probe.x - probe.size / 2, probe.y - probe.size / 2, probe.size, probe.size);
+                    Rectangle.intersect(clipped, bounds, clipped);
+                    int n = clipped.width * clipped.height;
+                    if (square.length < n) {
+                        square = new int[n];
+                    }
+                    source.getRegion(clipped.x, clipped.y, clipped.width, clipped.height, square);
+                    colors[i] = average(square, clipped.width, 0, 0, probe.size, clipped);
+                }
+            }
+            return null;
+        }
+    }
+
+    // the screens the probes can be on
+    private final List<Screen> screens = new ArrayList<>();
+    // all probes
+    private final List<Probe> probes = new ArrayList<>();
+    // the listeners
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // the threads reading the screens in parallel, null until needed
+    private ExecutorService pool = null;
+    // the screens holding probes, the tasks of a sample
+    private final List<Screen> active = new ArrayList<>();
+    // the detector the probe colors are fed to, null if none
+    private ChangeDetector detector = null;
+
+    /**
+     * Creates an empty probe set without screens, see
+     * {@link #addScreen(Rectangle, PixelSource)}.
+     */
+    public ProbeSet() {
+    }
+
+    /**
+     * Creates a probe set for all screen devices of the local graphics
+     * environment, each read through its own robot.
+     *
+     * @return the probe set
+     * @throws AWTException if the platform does not allow screen reading
+     */
+    public static ProbeSet forScreens() throws AWTException {
+        ProbeSet set = new ProbeSet();
+        for (GraphicsDevice device : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices()) {
+            set.addScreen(device.getDefaultConfiguration().getBounds(), new RobotPixelSource(new Robot(device)));
+        }
+        return set;
+    }
+
+    /**
+     * Adds a screen.
+     *
+     * @param bounds the screen bounds in the virtual screen
+     * @param source the source reading the screen in virtual screen
+     * coordinates
+     */
+    public synchronized void addScreen(Rectangle bounds, PixelSource source) {
+        screens.add(new Screen(bounds, source));
+    }
+
+    /**
+     * Adds a probe.
+     *
+     * @param name the name
+     * @param x the x coordinate in the virtual screen
+     * @param y the y coordinate in the virtual screen
+     * @param size the size of the square averaged around the point, 1 for
+     * the single pixel, rounded up to an odd number
+     * @return the probe
+     * @throws IllegalArgumentException if the point is on no screen
+     */
+    public synchronized Probe addProbe(String name, int x, int y, int size) {
+        size = Math.max(1, Math.min(RegionSampler.MAX_SIZE, size | 1));
+        for (Screen screen : screens) {
+            if (screen.bounds.contains(x, y)) {
+                Probe probe = new Probe(name, x, y, size);
+                if (detector != null) {
+                    probe.track = detector.track(name);
+                }
+                screen.probes.add(probe);
+                screen.layout();
+                probes.add(probe);
+                if (screen.probes.size() == 1) {
+                    active.add(screen);
+                }
+                return probe;
+            }
+        }
+        throw new IllegalArgumentException("probe " + name + " at " + x + ", " + y + " is on no screen");
+    }
+
+    /**
+     * @return the probes, in the order added
+     */
+    public synchronized List<Probe> getProbes() {
+        return new ArrayList<>(probes);
+    }
+
+    /**
+     * @return the number of screens holding probes
+     */
+    public synchronized int getActiveScreens() {
+        return active.size();
+    }
+
+    /**
+     * Sets the detector every sample of the probes is fed to, its events
+     * are flushed after each sample.
+     *
+     * @param detector the detector, null for none
+     */
+    public synchronized void setDetector(ChangeDetector detector) {
+        this.detector = detector;
+        for (Probe probe : probes) {
+            probe.track = detector == null ? null : detector.track(probe.name);
+        }
+    }
+
+    /**
+     * @param listener the listener to add
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Samples all probes, calls the listeners for the changed probes and
+     * feeds the detector.
+     *
+     * @return the number of probes which changed
+     * @throws InterruptedException if interrupted while the screens are read
+     */
+    public synchronized int sample() throws InterruptedException {
+        if (active.size() == 1) {
+            active.get(0).call();
+        } else if (active.size() > 1) {
+            if (pool == null) {
+                pool = Executors.newCachedThreadPool(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ProbeCapture");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            for (Future<Void> future : pool.invokeAll(active)) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("screen read failed", ex.getCause());
+                }
+            }
+        }
+        // read out the probes and tell the listeners about the changes
+        int changed = 0;
+        for (Screen screen : active) {
+            for (int i = 0; i < screen.colors.length; i++) {
+                Probe probe = screen.probes.get(i);
+                int previous = probe.rgb;
+                int rgb = screen.colors[i];
+                if (rgb != previous) {
+                    probe.rgb = rgb;
+                    probe.changes++;
+                    changed++;
+                    for (Listener listener : listeners) {
+                        listener.probeChanged(probe, previous);
+                    }
+                }
+            }
+        }
+        // the detector also needs the unchanged samples to time the settling
+        if (detector != null) {
+            long now = System.nanoTime();
+            for (Probe probe : probes) {
+                detector.update(probe.track, probe.x, probe.y, probe.rgb, now);
+            }
+            detector.flush();
+        }
+        return changed;
+    }
+
+    /**
+     * Stops the threads reading the screens.
+     */
+    public synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /*
+     * method to get the average opaque color of a square of a pixel buffer,
+     * rounded like the region sampler. the square is clipped to the clip
+     * rectangle ( in the buffer's coordinates relative to its origin ) if
+     * one is given
+     */
+    private static int average(int[] pixels, int stride, int x, int y, int size, Rectangle clip) {
+        int x0 = x, y0 = y, x1 = x + size, y1 = y + size;
+        if (clip != null) {
+            x0 = Math.max(x0, 0);
+            y0 = Math.max(y0, 0);
+            x1 = Math.min(x1, clip.width);
+            y1 = Math.min(y1, clip.height);
+        }
+        int red = 0, green = 0, blue = 0, count = 0;
+        for (int row = y0; row < y1; row++) {
+            for (int i = row * stride + x0, end = row * stride + x1; i < end; i++) {
+                int p = pixels[i];
+                red += (p >> 16) & 0xFF;
+                green += (p >> 8) & 0xFF;
+                blue += p & 0xFF;
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0xFF000000;
+        }
+        int half = count / 2;
+        return 0xFF000000 | ((red + half) / count) << 16 | ((green + half) / count) << 8 | ((blue + half) / count);
+    }
+
+    /**
+     * Watches probe points and prints their color changes as comma
+     * separated values.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        double rate = 10;
+        int size = 1;
+        // the change detection, off unless one of its options is given
+        boolean events = false;
+        float threshold = ChangeDetector.DEFAULT_THRESHOLD;
+        float hysteresis = ChangeDetector.DEFAULT_HYSTERESIS;
+        long debounce = ChangeDetector.DEFAULT_DEBOUNCE;
+        List<String> specs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rate":
+                        rate = Double.parseDouble(args[++i]);
+                        break;
+                    case "--size":
+                        size = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threshold":
+                        threshold = Float.parseFloat(args[++i]);
+                        events = true;
+                        break;
+                    case "--hysteresis":
+                        hysteresis = Float.parseFloat(args[++i]);
+                        events = true;
+                        break;
+                    case "--debounce":
+                        debounce = Long.parseLong(args[++i]);
+                        events = true;
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        }
+                        specs.add(args[i]);
+                }
+            }
+            if (specs.isEmpty()) {
+                throw new IllegalArgumentException("no probes given");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex instanceof ArrayIndexOutOfBoundsException ? "missing option value" : ex.getMessage());
+            System.err.println("usage: ProbeSet [--rate hz] [--size pixels] [--threshold deltaE]"
+                    + " [--hysteresis deltaE] [--debounce ms] [name=]x,y...");
+            System.exit(2);
+            return;
+        }
+        try {
+            final ProbeSet set = forScreens();
+            for (String spec : specs) {
+                int equals = spec.indexOf('=');
+                String point = spec.substring(equals + 1);
+                int comma = point.indexOf(',');
+                if (comma < 0) {
+                    throw new IllegalArgumentException("probe must be [name=]x,y: " + spec);
+                }
+                set.addProbe(equals < 0 ? point : spec.substring(0, equals),
+                        Integer.parseInt(point.substring(0, comma).trim()),
+                        Integer.parseInt(point.substring(comma + 1).trim()), size);
+            }
+            final NamedColorIndex names = NamedColorIndex.loadDefault();
+            final ColorSample sample = new ColorSample();
+            final PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            if (events) {
+                // print the settled changes, written and flushed on the dispatch thread
+                out.println("time,probe,x,y,color,previous,delta_e,settle_ms,name");
+                ChangeDetector detector = new ChangeDetector(threshold, hysteresis, debounce);
+                detector.addListener(new ChangeDetector.Listener() {
+                    @Override
+                    public void colorsChanged(List<ChangeDetector.Event> events) {
+                        for (ChangeDetector.Event event : events) {
+                            sample.set(event.getX(), event.getY(), event.getRGB(), null, names);
+                            out.printf(Locale.ROOT, "%d,%s,%d,%d,%s,%s,%.1f,%d,%s%n", event.getTime(), event.getName(),
+                                    event.getX(), event.getY(), sample.getHex(), ColorFormat.hex(event.getPreviousRGB()),
+                                    event.getDeltaE(), event.getSettleMillis(), sample.getColorName());
+                        }
+                        out.flush();
+                    }
+                });
+                set.setDetector(detector);
+            } else {
+                out.println("time,probe,x,y,color,previous,name");
+                set.addListener(new Listener() {
+                    @Override
+                    public void probeChanged(Probe probe, int previousRGB) {
+                        sample.set(probe.getX(), probe.getY(), probe.getRGB(), null, names);
+                        out.printf("%d,%s,%d,%d,%s,%s,%s%n", System.currentTimeMillis(), probe.getName(),
+                                probe.getX(), probe.getY(), sample.getHex(),
+                                previousRGB == 0 ? "" : ColorFormat.hex(previousRGB), sample.getColorName());
+                    }
+                });
+            }
+            SamplingScheduler scheduler = new SamplingScheduler(rate, 1);
+            int changed = 0;
+            while (true) {
+                scheduler.awaitNextTick(changed > 0);
+                changed = set.sample();
+                if (changed > 0 && !events) {
+                    out.flush();
+                }
+            }
+        } catch (AWTException | IOException | IllegalArgumentException ex) {
+            Logger.getLogger(ProbeSet.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            // stopped
+        }
+    }
+}
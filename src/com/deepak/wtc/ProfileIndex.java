@@ -0,0 +1,363 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The index of the ICC profiles in the profiles folder.
+ *
+ * Only the 128 byte profile headers are read, in parallel, and the result
+ * is kept in an index file in the profiles folder. Profiles whose size and
+ * modification time match the index are not read again, so an unchanged
+ * folder is listed without opening a single profile.
+ *
+ * @author deepak
+ */
+public class ProfileIndex {
+
+    // the name of the index file in the profiles folder
+    public static final String INDEX_FILE = "profiles.idx";
+    // the first line of the index file
+    private static final String INDEX_HEADER = "# What's That Color profile index v1";
+    // the size of the ICC profile header
+    private static final int HEADER_SIZE = 128;
+    // offset of the data color space signature in the header
+    private static final int COLOR_SPACE_OFFSET = 16;
+    // offset of the 'acsp' profile file signature in the header
+    private static final int SIGNATURE_OFFSET = 36;
+
+    /**
+     * An indexed profile.
+     */
+    public static final class Entry {
+
+        // the profile file
+        private final File file;
+        // the file size and modification time the entry was read at
+        private final long size;
+        private final long modified;
+        // the data color space signature, for example 'CMYK' or 'RGB '
+        private final String colorSpace;
+        // the hex MD5 digest of the header
+        private final String digest;
+
+        Entry(File file, long size, long modified, String colorSpace, String digest) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+            this.colorSpace = colorSpace;
+            this.digest = digest;
+        }
+
+        /**
+         * @return the profile file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the profile name, the file name without the extension
+         */
+        public String getName() {
+            String fileName = file.getName();
+            return fileName.substring(0, fileName.length() - 4);
+        }
+
+        /**
+         * @return the file size in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return the file modification time
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * @return the four character data color space signature
+         */
+        public String getColorSpace() {
+            return colorSpace;
+        }
+
+        /**
+         * @return true if the profile converts to CMYK
+         */
+        public boolean isCMYK() {
+            return "CMYK".equals(colorSpace);
+        }
+
+        /**
+         * @return the hex MD5 digest of the profile header
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        /*
+         * method to check if the entry still describes the file
+         */
+        private boolean isCurrent() {
+            return file.length() == size && file.lastModified() == modified;
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+    // the profiles folder
+    private final File folder;
+    // the number of headers read by the last scan
+    private int headersRead = 0;
+
+    /**
+     * Creates the index of a profiles folder.
+     *
+     * @param folder the folder
+     */
+    public ProfileIndex(File folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Lists the profiles in the folder, the folder is created if it does not
+     * exist. Changed and new profiles are read in parallel and the index file
+     * is updated if anything changed.
+     *
+     * @return the profiles sorted by name, unreadable files are left out
+     * @throws InterruptedException if interrupted while reading the headers
+     */
+    public List<Entry> scan() throws InterruptedException {
+        headersRead = 0;
+        // if doesnt exists then make one, there are no profiles then
+        if (!folder.exists()) {
+            folder.mkdir();
+            return Collections.emptyList();
+        }
+        File[] files = folder.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File pathname) {
+                // only accept files with extension '.icc'
+                return pathname.isFile() && pathname.getName().toLowerCase().endsWith(".icc");
+            }
+        });
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Map<String, Entry> indexed = load();
+        List<Entry> entries = new ArrayList<>();
+        List<File> changed = new ArrayList<>();
+        for (File file : files) {
+            Entry entry = indexed.get(file.getName());
+            if (entry != null && entry.isCurrent()) {
+                entries.add(entry);
+            } else {
+                changed.add(file);
+            }
+        }
+        if (!changed.isEmpty()) {
+            entries.addAll(readHeaders(changed));
+        }
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry a, Entry b) {
+                return a.getName().compareToIgnoreCase(b.getName());
+            }
+        });
+        // write the index back if a profile changed, was added or was removed
+        if (!changed.isEmpty() || entries.size() != indexed.size()) {
+            try {
+                save(entries);
+            } catch (IOException ex) {
+                Logger.getLogger(ProfileIndex.class.getName()).log(Level.WARNING, "could not save the profile index", ex);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return the number of profile headers read by the last scan
+     */
+    public int getHeadersRead() {
+        return headersRead;
+    }
+
+    /*
+     * method to read the headers of the given files in parallel
+     */
+    private List<Entry> readHeaders(List<File> files) throws InterruptedException {
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ProfileIndex");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Callable<Entry>> tasks = new ArrayList<>(files.size());
+            for (final File file : files) {
+                tasks.add(new Callable<Entry>() {
+                    @Override
+                    public Entry call() throws IOException {
+                        return readHeader(file);
+                    }
+                });
+            }
+            List<Entry> entries = new ArrayList<>(files.size());
+            for (Future<Entry> result : executor.invokeAll(tasks)) {
+                try {
+                    entries.add(result.get());
+                    headersRead++;
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(ProfileIndex.class.getName()).log(Level.WARNING, "skipping unreadable profile", ex.getCause());
+                }
+            }
+            return entries;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * method to read the header of a profile file
+     */
+    private static Entry readHeader(File file) throws IOException {
+        // take size and time first so a concurrent change is read again next time
+        long size = file.length();
+        long modified = file.lastModified();
+        byte[] header = new byte[HEADER_SIZE];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(header);
+        }
+        if (header[SIGNATURE_OFFSET] != 'a' || header[SIGNATURE_OFFSET + 1] != 'c'
+                || header[SIGNATURE_OFFSET + 2] != 's' || header[SIGNATURE_OFFSET + 3] != 'p') {
+            throw new IOException("not an ICC profile: " + file);
+        }
+        String colorSpace = new String(header, COLOR_SPACE_OFFSET, 4, StandardCharsets.US_ASCII);
+        return new Entry(file, size, modified, colorSpace, digest(header));
+    }
+
+    /*
+     * method to get the hex MD5 digest of the given bytes
+     */
+    private static String digest(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder(32);
+            for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // every java platform supports MD5
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /*
+     * method to load the index file, an empty index if it is missing or broken
+     */
+    private Map<String, Entry> load() {
+        Map<String, Entry> entries = new HashMap<>();
+        File index = new File(folder, INDEX_FILE);
+        if (!index.isFile()) {
+            return entries;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(index), StandardCharsets.UTF_8))) {
+            if (!INDEX_HEADER.equals(in.readLine())) {
+                return entries;
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                // name, size, modification time, color space, digest
+                String[] fields = line.split("\t");
+                if (fields.length == 5) {
+                    entries.put(fields[0], new Entry(new File(folder, fields[0]),
+                            Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3], fields[4]));
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            Logger.getLogger(ProfileIndex.class.getName()).log(Level.WARNING, "ignoring broken profile index", ex);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /*
+     * method to write the index file
+     */
+    private void save(List<Entry> entries) throws IOException {
+        File index = new File(folder, INDEX_FILE);
+        File temp = new File(folder, INDEX_FILE + ".tmp");
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            out.write(INDEX_HEADER);
+            out.newLine();
+            for (Entry entry : entries) {
+                out.write(entry.getFile().getName() + "\t" + entry.getSize() + "\t" + entry.getModified()
+                        + "\t" + entry.getColorSpace() + "\t" + entry.getDigest());
+                out.newLine();
+            }
+        }
+        // replace the old index in one step
+        if (!temp.renameTo(index)) {
+            index.delete();
+            if (!temp.renameTo(index)) {
+                throw new IOException("could not replace " + index);
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.util.Arrays;
+
+/**
+ * Samples the color of a square region around a point.
+ *
+ * The region is read from the pixel source in a single call into a buffer
+ * which is kept between samples, so sampling allocates nothing as long as
+ * the region size does not change. Single pixel regions are read with a
+ * plain pixel read.
+ *
+ * The mode and size may be changed from any thread, sampling itself is
+ * meant to be done by a single thread.
+ *
+ * @author deepak
+ */
+public class RegionSampler {
+
+    /**
+     * How the colors of the region are combined into one color.
+     */
+    public enum Mode {
+
+        // the color of the center pixel
+        CENTER("Center"),
+        // the mean of each channel
+        AVERAGE("Average"),
+        // the median of each channel
+        MEDIAN("Median"),
+        // the most dominant color of the region palette
+        DOMINANT("Dominant");
+        // the display name
+        private final String displayName;
+
+        private Mode(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the next mode, wrapping around after the last one
+         */
+        public Mode next() {
+            Mode[] modes = values();
+            return modes[(ordinal() + 1) % modes.length];
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+    // the largest supported region size
+    public static final int MAX_SIZE = 63;
+    // the sampling mode
+    private volatile Mode mode;
+    // the region size, always odd so the point is the center pixel
+    private volatile int size;
+    // the region buffer, reused between samples
+    private int[] pixels = new int[0];
+    // the per channel histograms used for the median
+    private final int[] redHistogram = new int[256];
+    private final int[] greenHistogram = new int[256];
+    private final int[] blueHistogram = new int[256];
+    // the palette extractor used for the dominant color, created when first needed
+    private PaletteExtractor paletteExtractor = null;
+    // the palette of the last dominant color sample, reused by the next one
+    private PaletteExtractor.Palette palette = null;
+
+    /**
+     * Creates a single pixel sampler.
+     */
+    public RegionSampler() {
+        this(Mode.CENTER, 1);
+    }
+
+    /**
+     * Creates a sampler.
+     *
+     * @param mode the sampling mode
+     * @param size the region size, rounded up to the next odd number
+     */
+    public RegionSampler(Mode mode, int size) {
+        setMode(mode);
+        setSize(size);
+    }
+
+    /**
+     * @return the sampling mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param mode the sampling mode
+     */
+    public final void setMode(Mode mode) {
+        if (mode == null) {
+            throw new NullPointerException("mode");
+        }
+        this.mode = mode;
+    }
+
+    /**
+     * @return the region size in pixels per side
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the region size. Even sizes are rounded up to the next odd size
+     * and sizes are limited to 1 - {@link #MAX_SIZE}.
+     *
+     * @param size the region size in pixels per side
+     */
+    public final void setSize(int size) {
+        this.size = Math.max(1, Math.min(MAX_SIZE, size | 1));
+    }
+
+    /**
+     * Samples the region centered at a point.
+     *
+     * @param source the pixel source
+     * @param x the x coordinate of the center
+     * @param y the y coordinate of the center
+     * @return the combined color as packed opaque RGB
+     */
+    public int sample(PixelSource source, int x, int y) {
+        Mode m = mode;
+        int n = size;
+        if (n == 1) {
+            return 0xFF000000 | source.getPixel(x, y);
+        }
+        int count = n * n;
+        if (pixels.length != count) {
+            pixels = new int[count];
+        }
+        source.getRegion(x - n / 2, y - n / 2, n, n, pixels);
+        switch (m) {
+            case AVERAGE:
+                return average(pixels, count);
+            case MEDIAN:
+                return median(pixels, count);
+            case DOMINANT:
+                return dominant(pixels, count);
+            default:
+                return 0xFF000000 | pixels[count / 2];
+        }
+    }
+
+    /**
+     * @return the region buffer of the last sample, row major, or an empty
+     * array if no region has been read yet
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return the palette of the last sample in dominant mode, null if there
+     * is none, overwritten by the next sample in dominant mode
+     */
+    public PaletteExtractor.Palette getPalette() {
+        return palette;
+    }
+
+    /*
+     * method to get the dominant color of the pixels
+     */
+    private int dominant(int[] pixels, int count) {
+        if (paletteExtractor == null) {
+            // the regions are small, extract on the sampling thread
+            paletteExtractor = new PaletteExtractor(PaletteExtractor.DEFAULT_COLORS, null);
+            palette = new PaletteExtractor.Palette(PaletteExtractor.DEFAULT_COLORS);
+        }
+        paletteExtractor.extract(pixels, 0, count, palette);
+        return palette.getDominant();
+    }
+
+    /*
+     * method to get the mean color of the pixels
+     */
+    private static int average(int[] pixels, int count) {
+        int red = 0, green = 0, blue = 0;
+        for (int i = 0; i < count; i++) {
+            int p = pixels[i];
+            red += (p >> 16) & 0xFF;
+            green += (p >> 8) & 0xFF;
+            blue += p & 0xFF;
+        }
+        // round to the nearest value
+        int half = count / 2;
+        return 0xFF000000 | ((red + half) / count) << 16 | ((green + half) / count) << 8 | ((blue + half) / count);
+    }
+
+    /*
+     * method to get the per channel median color of the pixels
+     */
+    private int median(int[] pixels, int count) {
+        Arrays.fill(redHistogram, 0);
+        Arrays.fill(greenHistogram, 0);
+        Arrays.fill(blueHistogram, 0);
+        for (int i = 0; i < count; i++) {
+            int p = pixels[i];
+            redHistogram[(p >> 16) & 0xFF]++;
+            greenHistogram[(p >> 8) & 0xFF]++;
+            blueHistogram[p & 0xFF]++;
+        }
+        // the region size is odd so the median is the middle value
+        int middle = count / 2;
+        return 0xFF000000 | percentile(redHistogram, middle) << 16
+                | percentile(greenHistogram, middle) << 8 | percentile(blueHistogram, middle);
+    }
+
+    /*
+     * method to get the value of the given rank from a histogram
+     */
+    private static int percentile(int[] histogram, int rank) {
+        int seen = 0;
+        for (int v = 0; v < histogram.length; v++) {
+            seen += histogram[v];
+            if (seen > rank) {
+                return v;
+            }
+        }
+        return histogram.length - 1;
+    }
+
+    @Override
+    public String toString() {
+        return size == 1 ? "Pixel" : mode + " " + size + "x" + size;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.AWTException;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Rectangle;
+import java.awt.Robot;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * The live screen source, reads the pointer with {@link MouseInfo} and the
+ * pixels with a {@link Robot}.
+ *
+ * @author deepak
+ */
+public class RobotPixelSource implements PixelSource, PointerSource {
+
+    // the robot object to get the screen pixel color at a paticular coordinate
+    private final Robot robot;
+    // the capture rectangle, reused between region reads
+    private final Rectangle region = new Rectangle();
+
+    /**
+     * Creates a source for the default screen device.
+     *
+     * @throws AWTException if the platform does not allow screen reading
+     */
+    public RobotPixelSource() throws AWTException {
+        this(new Robot());
+    }
+
+    /**
+     * Creates a source reading through the given robot.
+     *
+     * @param robot the robot
+     */
+    public RobotPixelSource(Robot robot) {
+        this.robot = robot;
+    }
+
+    @Override
+    public int getPixel(int x, int y) {
+        return robot.getPixelColor(x, y).getRGB();
+    }
+
+    @Override
+    public void getRegion(int x, int y, int width, int height, int[] pixels) {
+        region.setBounds(x, y, width, height);
+        // one native screen read for the whole region
+        BufferedImage capture = robot.createScreenCapture(region);
+        if (capture.getRaster().getDataBuffer() instanceof DataBufferInt
+                && capture.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && capture.getType() == BufferedImage.TYPE_INT_RGB) {
+            // read the capture buffer directly, row by row
+            int[] data = ((DataBufferInt) capture.getRaster().getDataBuffer()).getData();
+            int stride = ((SinglePixelPackedSampleModel) capture.getSampleModel()).getScanlineStride();
+            int i = 0;
+            for (int row = 0; row < height; row++) {
+                int offset = row * stride;
+                for (int col = 0; col < width; col++) {
+                    // the capture carries no alpha, make the pixels opaque
+                    pixels[i++] = 0xFF000000 | data[offset + col];
+                }
+            }
+        } else {
+            capture.getRGB(0, 0, width, height, pixels, 0, width);
+        }
+    }
+
+    @Override
+    public boolean getPointerLocation(Point location) {
+        // the pointer info is null if there is no mouse
+        PointerInfo info = MouseInfo.getPointerInfo();
+        if (info == null) {
+            return false;
+        }
+        location.setLocation(info.getLocation());
+        return true;
+    }
+
+    /**
+     * @return the robot used to read the screen
+     */
+    public Robot getRobot() {
+        return robot;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands samples from the analyser thread to the event dispatch thread
+ * through a single slot, recycling the sample objects.
+ *
+ * The writer fills the sample from {@link #acquire()} and publishes it,
+ * replacing a sample not taken yet ( which becomes the writer's next
+ * sample ). The reader takes the latest sample and gives back the sample
+ * it no longer needs with {@link #recycle(ColorSample)}. After the first
+ * few samples no samples are allocated anymore.
+ *
+ * @author deepak
+ */
+public class SampleExchange {
+
+    // the latest published sample, null once taken
+    private final AtomicReference<ColorSample> latest = new AtomicReference<>();
+    // a sample given back by the reader
+    private final AtomicReference<ColorSample> recycled = new AtomicReference<>();
+    // the sample the writer fills next, only used by the writer
+    private ColorSample spare = null;
+    // the number of published samples replaced before they were taken
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Gets the sample to fill next, called by the writer.
+     *
+     * @return the sample
+     */
+    public ColorSample acquire() {
+        if (spare == null) {
+            spare = recycled.getAndSet(null);
+            if (spare == null) {
+                spare = new ColorSample();
+            }
+        }
+        return spare;
+    }
+
+    /**
+     * Publishes the sample last returned by {@link #acquire()}, called by
+     * the writer.
+     */
+    public void publish() {
+        if (spare == null) {
+            throw new IllegalStateException("no sample acquired");
+        }
+        spare = latest.getAndSet(spare);
+        if (spare != null) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Takes the latest sample, called by the reader. The sample must be
+     * recycled once the reader no longer needs it.
+     *
+     * @return the sample, null if nothing was published since the last take
+     */
+    public ColorSample take() {
+        return latest.getAndSet(null);
+    }
+
+    /**
+     * Gives a taken sample back for reuse, called by the reader.
+     *
+     * @param sample the sample, null is ignored
+     */
+    public void recycle(ColorSample sample) {
+        if (sample != null) {
+            recycled.set(sample);
+        }
+    }
+
+    /**
+     * @return the number of samples replaced before the reader took them
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
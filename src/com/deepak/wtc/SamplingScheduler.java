@@ -0,0 +1,269 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces the color analysis loop.
+ *
+ * Ticks are issued at a configurable target rate. While paused the sampling
+ * thread parks on a condition instead of spinning, and while the sampled
+ * input is not changing the tick period is backed off (doubled up to a
+ * limit) so an idle pointer costs next to nothing.
+ *
+ * @author deepak
+ */
+public class SamplingScheduler {
+
+    // default sampling rate in hertz
+    public static final double DEFAULT_RATE = 60.0;
+    // default maximum backoff factor applied to the tick period when idle
+    public static final int DEFAULT_MAX_BACKOFF = 8;
+    // number of unchanged ticks before the period starts backing off
+    private static final int IDLE_TICKS_BEFORE_BACKOFF = 4;
+    // smoothing factor of the rate and jitter moving averages
+    private static final double SMOOTHING = 0.05;
+    // lock and condition the sampling thread parks on while paused
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition resumed = lock.newCondition();
+    // paused flag, read by the sampling thread on every tick
+    private volatile boolean paused = false;
+    // the target tick period in nanoseconds
+    private volatile long periodNanos;
+    // the maximum backoff factor
+    private volatile int maxBackoff;
+    // current backoff factor ( 1 = no backoff )
+    private int backoff = 1;
+    // number of consecutive ticks without change
+    private int idleTicks = 0;
+    // time the next tick is due
+    private long nextTick = 0;
+    // time of the last issued tick, 0 if none since the last resume
+    private long lastTick = 0;
+    // the statistics, written by the sampling thread only
+    private volatile double averageInterval = 0;
+    private volatile double averageJitter = 0;
+    private volatile long ticks = 0;
+
+    /**
+     * Creates a scheduler with the default rate and backoff.
+     */
+    public SamplingScheduler() {
+        this(DEFAULT_RATE, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param rate the target sampling rate in hertz
+     * @param maxBackoff the maximum factor the period is stretched by while
+     * the input is idle, 1 disables the backoff
+     */
+    public SamplingScheduler(double rate, int maxBackoff) {
+        setTargetRate(rate);
+        setMaxBackoff(maxBackoff);
+    }
+
+    /**
+     * Sets the target sampling rate.
+     *
+     * @param rate the rate in hertz, must be positive
+     */
+    public final void setTargetRate(double rate) {
+        if (!(rate > 0)) {
+            throw new IllegalArgumentException("rate must be positive: " + rate);
+        }
+        periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * @return the target sampling rate in hertz
+     */
+    public double getTargetRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / periodNanos;
+    }
+
+    /**
+     * Sets the maximum backoff factor.
+     *
+     * @param maxBackoff the factor, 1 disables the idle backoff
+     */
+    public final void setMaxBackoff(int maxBackoff) {
+        if (maxBackoff < 1) {
+            throw new IllegalArgumentException("backoff must be at least 1: " + maxBackoff);
+        }
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Pauses the sampling, the sampling thread parks on its next tick.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resumes the sampling and wakes up the sampling thread.
+     */
+    public void resume() {
+        lock.lock();
+        try {
+            paused = false;
+            resumed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Toggles between paused and running.
+     */
+    public void toggle() {
+        if (paused) {
+            resume();
+        } else {
+            pause();
+        }
+    }
+
+    /**
+     * @return true if the sampling is paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Blocks until the next sample is due.
+     *
+     * Called by the sampling thread once per sample, with the information
+     * whether the previous sample differed from the one before it.
+     *
+     * @param changed true if the last sample changed, resets the backoff
+     * @throws InterruptedException if the sampling thread is interrupted
+     */
+    public void awaitNextTick(boolean changed) throws InterruptedException {
+        // adapt the backoff to the input activity
+        if (changed) {
+            idleTicks = 0;
+            backoff = 1;
+        } else if (++idleTicks > IDLE_TICKS_BEFORE_BACKOFF && backoff < maxBackoff) {
+            backoff = Math.min(backoff * 2, maxBackoff);
+        }
+        // park while paused
+        if (paused) {
+            lock.lock();
+            try {
+                while (paused) {
+                    resumed.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+            // the pause is not part of the rate statistics
+            lastTick = 0;
+            nextTick = 0;
+            backoff = 1;
+            idleTicks = 0;
+        }
+        long period = periodNanos * backoff;
+        long now = System.nanoTime();
+        if (nextTick == 0 || now - nextTick > period) {
+            // first tick or too far behind, do not try to catch up
+            nextTick = now + period;
+        } else {
+            nextTick += period;
+        }
+        // sleep until the tick is due
+        long remaining;
+        while ((remaining = nextTick - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        record(System.nanoTime(), period);
+    }
+
+    /*
+     * method to update the rate and jitter statistics with a tick
+     */
+    private void record(long now, long expected) {
+        if (lastTick != 0) {
+            long interval = now - lastTick;
+            // the jitter is measured against the backed off period
+            long deviation = Math.abs(interval - expected);
+            // normalize the interval to the unbacked period for the rate
+            double normalized = (double) interval / backoff;
+            if (averageInterval == 0) {
+                averageInterval = normalized;
+                averageJitter = deviation;
+            } else {
+                averageInterval += SMOOTHING * (normalized - averageInterval);
+                averageJitter += SMOOTHING * (deviation - averageJitter);
+            }
+        }
+        lastTick = now;
+        ticks++;
+    }
+
+    /**
+     * @return the achieved sampling rate in hertz, excluding idle backoff
+     */
+    public double getAchievedRate() {
+        double interval = averageInterval;
+        return interval == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / interval;
+    }
+
+    /**
+     * @return the average deviation of the tick intervals from the
+     * scheduled period in milliseconds
+     */
+    public double getJitterMillis() {
+        return averageJitter / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return the current idle backoff factor
+     */
+    public int getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * @return the number of ticks issued so far
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("target %.1f Hz, achieved %.1f Hz, jitter %.3f ms, backoff x%d",
+                getTargetRate(), getAchievedRate(), getJitterMillis(), backoff);
+    }
+}
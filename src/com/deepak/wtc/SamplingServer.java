@@ -0,0 +1,927 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.AWTException;
+import java.awt.Point;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small HTTP server on the loopback interface answering color queries
+ * for scripted clients.
+ *
+ * All clients are served by a single thread multiplexing non blocking
+ * channels on a selector, so hundreds of clients cost no thread each. The
+ * screen reads are handed to a single sampling thread, so a large capture
+ * does not hold up the other clients. The colors go through the same
+ * {@link RegionSampler} and {@link ColorSample} analysis the window shows.
+ * The requests are:
+ *
+ * <pre>
+ * GET /color?x=10&amp;y=20           the color at a point
+ * GET /colors?points=10,20;30,40   the colors at many points, one capture
+ * GET /pointer                     the color under the pointer
+ * GET /stream?rate=30              the color under the pointer whenever it
+ *                                  changes, one json object per line
+ * </pre>
+ *
+ * Every request takes the optional 'size' and 'mode' parameters of the
+ * region sampling. The answers are json, connections are kept alive. Only
+ * requests for localhost are answered, so a web page cannot read the screen
+ * through a host name resolving to the loopback address.
+ *
+ * @author deepak
+ */
+public class SamplingServer implements Closeable {
+
+    // default port
+    public static final int DEFAULT_PORT = 47800;
+    // default and maximum rate of the pointer streams in hertz
+    public static final int DEFAULT_STREAM_RATE = 30;
+    private static final int MAX_STREAM_RATE = 1000;
+    // maximum size of a request head
+    private static final int MAX_REQUEST = 8192;
+    // maximum number of points of a batched query
+    private static final int MAX_POINTS = 100000;
+    // maximum number of pixels a batched query captures at once
+    private static final int MAX_CAPTURE = 1 << 20;
+    // the sources of the colors and the pointer
+    private final PixelSource pixelSource;
+    private final PointerSource pointerSource;
+    // the listening channel and the selector of all channels
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    // the serving thread
+    private final Thread thread;
+    // the thread reading the screen, the only user of the sources
+    private final ExecutorService worker;
+    // the results of the sampling thread, taken by the serving thread
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    // the CMYK lookup table and the named colors, set by the owner
+    private volatile CmykLookupTable cmykTable = null;
+    private volatile NamedColorIndex namedColors = null;
+    // the sampling state, only used on the sampling thread
+    private final RegionSampler sampler = new RegionSampler();
+    private final ColorSample sample = new ColorSample();
+    private final Point pointer = new Point();
+    private int[] capture = new int[0];
+    // the clients streaming the pointer color
+    private final List<Client> streams = new ArrayList<>();
+    // the statistics
+    private final AtomicLong requests = new AtomicLong();
+    private volatile int connections = 0;
+
+    /**
+     * Creates a server bound to a loopback port, call {@link #start()} to
+     * serve.
+     *
+     * @param pixelSource the pixel source, only used by the server's
+     * sampling thread
+     * @param pointerSource the pointer source
+     * @param port the port, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public SamplingServer(PixelSource pixelSource, PointerSource pointerSource, int port) throws IOException {
+        this.pixelSource = pixelSource;
+        this.pointerSource = pointerSource;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException ex) {
+            serverChannel.close();
+            selector.close();
+            throw ex;
+        }
+        thread = new Thread("SamplingServer") {
+            @Override
+            public void run() {
+                serve();
+            }
+        };
+        thread.setDaemon(true);
+        worker = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread sampling = new Thread(r, "SamplingServerCapture");
+                sampling.setDaemon(true);
+                return sampling;
+            }
+        });
+    }
+
+    /**
+     * Starts serving on a background thread.
+     */
+    public void start() {
+        thread.start();
+        Logger.getLogger(SamplingServer.class.getName()).log(Level.INFO,
+                "sampling server listening on http://localhost:{0,number,#}/", getPort());
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void join() throws InterruptedException {
+        thread.join();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Sets the CMYK lookup table the colors are analysed with.
+     *
+     * @param cmykTable the table, null for no CMYK values
+     */
+    public void setCmykTable(CmykLookupTable cmykTable) {
+        this.cmykTable = cmykTable;
+    }
+
+    /**
+     * Sets the named colors the colors are named with.
+     *
+     * @param namedColors the dictionary, null for no names
+     */
+    public void setNamedColors(NamedColorIndex namedColors) {
+        this.namedColors = namedColors;
+    }
+
+    /**
+     * @return the number of requests served
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Stops serving and closes all connections.
+     */
+    @Override
+    public void close() {
+        thread.interrupt();
+        selector.wakeup();
+    }
+
+    /*
+     * the state of a client connection
+     */
+    private static class Client {
+
+        // the channel
+        private final SocketChannel channel;
+        // the request bytes read so far
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_REQUEST);
+        // the response bytes not written yet, null if none
+        private ByteBuffer out = null;
+        // whether the connection is closed once the response is written
+        private boolean closing = false;
+        // whether the sampling thread is working for the client
+        private boolean sampling = false;
+        // the stream period and next due time, 0 if not streaming
+        private long period = 0;
+        private long due = 0;
+        // the last streamed color and location, only used on the sampling thread
+        private int lastRGB = 0;
+        private int lastX = Integer.MIN_VALUE;
+        private int lastY = Integer.MIN_VALUE;
+        // the region sampling of the stream
+        private RegionSampler.Mode mode;
+        private int size;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /*
+     * method to run the selector loop until the thread is interrupted
+     */
+    private void serve() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                long wait = streamStep(System.nanoTime());
+                if (wait == 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(wait < 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                }
+                deliverResults();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) {
+                            read(key, client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(key, client);
+                        }
+                    } catch (IOException ex) {
+                        // the client went away
+                        disconnect(key);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(SamplingServer.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ex) {
+                    // closing anyway
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                // closing anyway
+            }
+            worker.shutdownNow();
+        }
+    }
+
+    /*
+     * method to accept the pending connections
+     */
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(selector, SelectionKey.OP_READ, new Client(channel));
+            connections++;
+        }
+    }
+
+    /*
+     * method to close a client connection
+     */
+    private void disconnect(SelectionKey key) {
+        if (!key.isValid()) {
+            // already disconnected
+            return;
+        }
+        key.cancel();
+        streams.remove((Client) key.attachment());
+        try {
+            key.channel().close();
+        } catch (IOException ex) {
+            // closing anyway
+        }
+        connections--;
+    }
+
+    /*
+     * method to read from a client and serve the complete requests
+     */
+    private void read(SelectionKey key, Client client) throws IOException {
+        if (client.period != 0) {
+            // streaming clients only send to close, discard the input
+            client.in.clear();
+        }
+        if (client.channel.read(client.in) < 0) {
+            disconnect(key);
+            return;
+        }
+        if (client.period == 0) {
+            serveRequests(key, client);
+        }
+    }
+
+    /*
+     * method to write the pending response of a client
+     */
+    private void write(SelectionKey key, Client client) throws IOException {
+        if (client.out == null) {
+            key.interestOps(SelectionKey.OP_READ);
+            return;
+        }
+        client.channel.write(client.out);
+        if (client.out.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            return;
+        }
+        client.out = null;
+        key.interestOps(SelectionKey.OP_READ);
+        if (client.closing) {
+            disconnect(key);
+        } else if (client.period == 0) {
+            // serve the requests sent meanwhile
+            serveRequests(key, client);
+        }
+    }
+
+    /*
+     * method to serve the complete requests read from a client, one at a
+     * time as the responses must be sent in order
+     */
+    private void serveRequests(SelectionKey key, Client client) throws IOException {
+        while (client.out == null && !client.sampling && client.period == 0 && key.isValid()) {
+            int end = headEnd(client.in);
+            if (end < 0) {
+                if (!client.in.hasRemaining()) {
+                    respond(key, client, "431 Request Header Fields Too Large", error("request too large"), false);
+                }
+                return;
+            }
+            String head = new String(client.in.array(), 0, end, StandardCharsets.ISO_8859_1);
+            // keep the bytes of the following requests
+            client.in.flip();
+            client.in.position(end + 4);
+            client.in.compact();
+            requests.incrementAndGet();
+            serve(key, client, head);
+        }
+    }
+
+    /*
+     * method to find the end of the request head, -1 if not complete yet
+     */
+    private static int headEnd(ByteBuffer in) {
+        byte[] bytes = in.array();
+        for (int i = 0; i + 3 < in.position(); i++) {
+            if (bytes[i] == '\r' && bytes[i + 1] == '\n' && bytes[i + 2] == '\r' && bytes[i + 3] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * method to answer a request
+     */
+    private void serve(SelectionKey key, Client client, String head) throws IOException {
+        String[] lines = head.split("\r\n");
+        String[] request = lines[0].split(" ");
+        if (request.length != 3 || !request[2].startsWith("HTTP/1.")) {
+            respond(key, client, "400 Bad Request", error("malformed request"), false);
+            return;
+        }
+        // HTTP/1.1 keeps the connection unless told otherwise
+        boolean keepAlive = request[2].equals("HTTP/1.1");
+        String host = null;
+        for (int i = 1; i < lines.length; i++) {
+            String line = lines[i].toLowerCase(Locale.ROOT);
+            if (line.startsWith("connection:")) {
+                keepAlive = line.contains("keep-alive") || (keepAlive && !line.contains("close"));
+            } else if (line.startsWith("host:")) {
+                host = line.substring(5).trim();
+            }
+        }
+        // browsers always send the host, HTTP/1.0 clients may leave it out
+        if (host == null ? request[2].equals("HTTP/1.1") : !isLocalHost(host)) {
+            respond(key, client, "403 Forbidden", error("only requests for localhost are served"), false);
+            return;
+        }
+        if (!request[0].equals("GET")) {
+            respond(key, client, "405 Method Not Allowed", error("only GET is supported"), keepAlive);
+            return;
+        }
+        String target = request[1];
+        int question = target.indexOf('?');
+        String path = question < 0 ? target : target.substring(0, question);
+        try {
+            Map<String, String> query = parseQuery(question < 0 ? "" : target.substring(question + 1));
+            RegionSampler.Mode mode = RegionSampler.Mode.valueOf(get(query, "mode", "center").toUpperCase(Locale.ROOT));
+            int size = Integer.parseInt(get(query, "size", "1"));
+            switch (path) {
+                case "/color":
+                    final int x = Integer.parseInt(required(query, "x"));
+                    final int y = Integer.parseInt(required(query, "y"));
+                    sample(key, client, keepAlive, mode, size, new Job() {
+                        @Override
+                        protected String answer() {
+                            return sampleAt(x, y, new StringBuilder()).toString();
+                        }
+                    });
+                    break;
+                case "/colors":
+                    final String points = required(query, "points");
+                    sample(key, client, keepAlive, mode, size, new Job() {
+                        @Override
+                        protected String answer() {
+                            return samplePoints(points);
+                        }
+                    });
+                    break;
+                case "/pointer":
+                    sample(key, client, keepAlive, mode, size, new Job() {
+                        @Override
+                        protected String answer() {
+                            if (!pointerSource.getPointerLocation(pointer)) {
+                                status = "503 Service Unavailable";
+                                return error("no pointer");
+                            }
+                            return sampleAt(pointer.x, pointer.y, new StringBuilder()).toString();
+                        }
+                    });
+                    break;
+                case "/stream":
+                    int rate = Integer.parseInt(get(query, "rate", String.valueOf(DEFAULT_STREAM_RATE)));
+                    if (rate < 1 || rate > MAX_STREAM_RATE) {
+                        throw new IllegalArgumentException("rate must be between 1 and " + MAX_STREAM_RATE);
+                    }
+                    startStream(key, client, rate, mode, size);
+                    break;
+                default:
+                    respond(key, client, "404 Not Found", error("unknown path " + path), keepAlive);
+            }
+        } catch (IllegalArgumentException ex) {
+            respond(key, client, "400 Bad Request", error(ex.getMessage()), keepAlive);
+        }
+    }
+
+    /*
+     * method to check that the host header of a request names the loopback
+     * interface, with or without a port
+     */
+    private static boolean isLocalHost(String host) {
+        String name = host;
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0 && colon > host.lastIndexOf(']')) {
+            String port = host.substring(colon + 1);
+            if (port.isEmpty() || port.length() > 5 || !port.matches("[0-9]+")) {
+                return false;
+            }
+            name = host.substring(0, colon);
+        }
+        return name.equals("localhost") || name.equals("127.0.0.1") || name.equals("[::1]");
+    }
+
+    /*
+     * a request answered on the sampling thread
+     */
+    private abstract class Job implements Runnable {
+
+        // the client, whether to keep its connection and the region sampling
+        private Client client;
+        private boolean keepAlive;
+        private RegionSampler.Mode mode;
+        private int size;
+        // the status of the answer
+        protected String status = "200 OK";
+
+        /*
+         * method to sample and answer the request, on the sampling thread
+         */
+        protected abstract String answer();
+
+        @Override
+        public void run() {
+            String body;
+            try {
+                sampler.setMode(mode);
+                sampler.setSize(size);
+                body = answer();
+            } catch (IllegalArgumentException ex) {
+                status = "400 Bad Request";
+                body = error(ex.getMessage());
+            } catch (RuntimeException ex) {
+                Logger.getLogger(SamplingServer.class.getName()).log(Level.WARNING, null, ex);
+                status = "500 Internal Server Error";
+                body = error("sampling failed");
+            }
+            deliver(new Result(client, status, body, keepAlive));
+        }
+    }
+
+    /*
+     * the answer of the sampling thread for a client, a response or a line
+     * of a stream ( without a status, the body is null if the color did not
+     * change )
+     */
+    private static final class Result {
+
+        private final Client client;
+        private final String status;
+        private final String body;
+        private final boolean keepAlive;
+
+        private Result(Client client, String status, String body, boolean keepAlive) {
+            this.client = client;
+            this.status = status;
+            this.body = body;
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /*
+     * method to hand a request to the sampling thread, the client is not
+     * read until the answer is sent, so its following requests wait
+     */
+    private void sample(SelectionKey key, Client client, boolean keepAlive, RegionSampler.Mode mode, int size,
+            Job job) {
+        job.client = client;
+        job.keepAlive = keepAlive;
+        job.mode = mode;
+        job.size = size;
+        client.sampling = true;
+        key.interestOps(0);
+        worker.execute(job);
+    }
+
+    /*
+     * method to pass a result to the serving thread, on the sampling thread
+     */
+    private void deliver(Result result) {
+        results.add(result);
+        selector.wakeup();
+    }
+
+    /*
+     * method to send the results of the sampling thread to the clients
+     * still connected
+     */
+    private void deliverResults() {
+        Result result;
+        while ((result = results.poll()) != null) {
+            Client client = result.client;
+            client.sampling = false;
+            SelectionKey key = client.channel.keyFor(selector);
+            if (key == null || !key.isValid()) {
+                continue;
+            }
+            try {
+                if (result.status != null) {
+                    respond(key, client, result.status, result.body, result.keepAlive);
+                } else if (result.body != null) {
+                    send(key, client, "", result.body.getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException ex) {
+                disconnect(key);
+            }
+        }
+    }
+
+    /*
+     * method to parse the query parameters
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            int equals = parameter.indexOf('=');
+            try {
+                parameters.put(URLDecoder.decode(equals < 0 ? parameter : parameter.substring(0, equals), "UTF-8"),
+                        equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+            } catch (UnsupportedEncodingException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return parameters;
+    }
+
+    /*
+     * method to get a query parameter or its default
+     */
+    private static String get(Map<String, String> query, String name, String defaultValue) {
+        String value = query.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /*
+     * method to get a required query parameter
+     */
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing parameter " + name);
+        }
+        return value;
+    }
+
+    /*
+     * method to sample and analyse a point and append it as json
+     */
+    private StringBuilder sampleAt(int x, int y, StringBuilder json) {
+        return appendSample(json, sample.set(x, y, sampler.sample(pixelSource, x, y), cmykTable, namedColors));
+    }
+
+    /*
+     * method to sample the points of a batched query as a json array
+     *
+     * single pixels within a small enough bounding box are read with one
+     * capture instead of one screen read per point
+     */
+    private String samplePoints(String list) {
+        String[] points = list.split(";");
+        if (points.length > MAX_POINTS) {
+            throw new IllegalArgumentException("more than " + MAX_POINTS + " points");
+        }
+        int[] xs = new int[points.length];
+        int[] ys = new int[points.length];
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < points.length; i++) {
+            int comma = points[i].indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("point must be x,y: " + points[i]);
+            }
+            xs[i] = Integer.parseInt(points[i].substring(0, comma).trim());
+            ys[i] = Integer.parseInt(points[i].substring(comma + 1).trim());
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        long width = (long) maxX - minX + 1;
+        long height = (long) maxY - minY + 1;
+        boolean captured = sampler.getSize() == 1 && width * height <= MAX_CAPTURE;
+        if (captured) {
+            if (capture.length < width * height) {
+                capture = new int[(int) (width * height)];
+            }
+            pixelSource.getRegion(minX, minY, (int) width, (int) height, capture);
+        }
+        StringBuilder json = new StringBuilder("[");
+        CmykLookupTable table = cmykTable;
+        NamedColorIndex names = namedColors;
+        for (int i = 0; i < points.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (captured) {
+                int rgb = capture[(int) ((ys[i] - minY) * width + xs[i] - minX)];
+                appendSample(json, sample.set(xs[i], ys[i], rgb, table, names));
+            } else {
+                sampleAt(xs[i], ys[i], json);
+            }
+        }
+        return json.append(']').toString();
+    }
+
+    /*
+     * method to append a sample as a json object, also used by the stream
+     * analyser
+     */
+    static StringBuilder appendSample(StringBuilder json, ColorSample sample) {
+        json.append("{\"x\":").append(sample.getX())
+                .append(",\"y\":").append(sample.getY())
+                .append(",\"hex\":\"#").append(sample.getHex())
+                .append("\",\"rgb\":[").append(sample.getRed()).append(',').append(sample.getGreen())
+                .append(',').append(sample.getBlue())
+                .append("],\"hsb\":[").append(sample.getHue()).append(',').append(sample.getSaturation())
+                .append(',').append(sample.getBrightness()).append(']');
+        if (sample.hasCMYK()) {
+            json.append(",\"cmyk\":[").append(sample.getCyan()).append(',').append(sample.getMagenta())
+                    .append(',').append(sample.getYellow()).append(',').append(sample.getKey()).append(']');
+        }
+        if (sample.getColorName() != null) {
+            json.append(",\"name\":").append(BatchAnalyser.quote(sample.getColorName()))
+                    .append(",\"deltaE\":").append(String.format(Locale.ROOT, "%.1f", sample.getColorNameDistance()));
+        }
+        return json.append('}');
+    }
+
+    /*
+     * method to format an error as json
+     */
+    private static String error(String message) {
+        return "{\"error\":" + BatchAnalyser.quote(String.valueOf(message)) + "}";
+    }
+
+    /*
+     * method to send a json response
+     */
+    private void respond(SelectionKey key, Client client, String status, String body, boolean keepAlive) throws IOException {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + (content.length + 1) + "\r\n"
+                + "Connection: " + (keepAlive ? "keep-alive" : "close") + "\r\n\r\n";
+        client.closing = !keepAlive;
+        send(key, client, head, content);
+    }
+
+    /*
+     * method to start streaming the pointer color to a client, the stream
+     * ends when the client closes the connection
+     */
+    private void startStream(SelectionKey key, Client client, int rate, RegionSampler.Mode mode, int size)
+            throws IOException {
+        client.period = TimeUnit.SECONDS.toNanos(1) / rate;
+        client.due = System.nanoTime();
+        client.mode = mode;
+        client.size = size;
+        client.in.clear();
+        streams.add(client);
+        send(key, client, "HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/x-ndjson\r\n"
+                + "Cache-Control: no-cache\r\n"
+                + "Connection: close\r\n\r\n", null);
+    }
+
+    /*
+     * method to have the sampling thread push the pointer color to the
+     * streams which are due
+     *
+     * returns the nanoseconds until the next stream is due, -1 if there
+     * are no streams. a stream still writing or sampling its last line skips
+     * the tick, so a slow client gets the latest color instead of a backlog
+     */
+    private long streamStep(long now) {
+        if (streams.isEmpty()) {
+            return -1;
+        }
+        List<Client> due = null;
+        long wait = Long.MAX_VALUE;
+        for (Client client : streams) {
+            if (client.due - now <= 0) {
+                client.due = Math.max(client.due + client.period, now);
+                if (client.out == null && !client.sampling) {
+                    if (due == null) {
+                        due = new ArrayList<>();
+                    }
+                    client.sampling = true;
+                    due.add(client);
+                }
+            }
+            wait = Math.min(wait, client.due - now);
+        }
+        if (due != null) {
+            final List<Client> clients = due;
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    streamTick(clients);
+                }
+            });
+        }
+        return Math.max(0, wait);
+    }
+
+    /*
+     * method to sample the pointer color for the due streams, on the
+     * sampling thread
+     */
+    private void streamTick(List<Client> clients) {
+        boolean hasPointer = false;
+        try {
+            hasPointer = pointerSource.getPointerLocation(pointer);
+        } catch (RuntimeException ex) {
+            Logger.getLogger(SamplingServer.class.getName()).log(Level.WARNING, null, ex);
+        }
+        for (Client client : clients) {
+            String line = null;
+            try {
+                if (hasPointer) {
+                    sampler.setMode(client.mode);
+                    sampler.setSize(client.size);
+                    int rgb = sampler.sample(pixelSource, pointer.x, pointer.y);
+                    if (rgb != client.lastRGB || pointer.x != client.lastX || pointer.y != client.lastY) {
+                        client.lastRGB = rgb;
+                        client.lastX = pointer.x;
+                        client.lastY = pointer.y;
+                        line = appendSample(new StringBuilder(), sample.set(pointer.x, pointer.y, rgb,
+                                cmykTable, namedColors)).toString();
+                    }
+                }
+            } catch (RuntimeException ex) {
+                Logger.getLogger(SamplingServer.class.getName()).log(Level.WARNING, null, ex);
+            }
+            // the stream is sampled again on its next tick
+            deliver(new Result(client, null, line, true));
+        }
+    }
+
+    /*
+     * method to write a head and a body followed by a new line, what the
+     * channel does not take now is written once it is writable
+     */
+    private void send(SelectionKey key, Client client, String head, byte[] body) throws IOException {
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer out = ByteBuffer.allocate(headBytes.length + (body == null ? 0 : body.length + 1));
+        out.put(headBytes);
+        if (body != null) {
+            out.put(body).put((byte) '\n');
+        }
+        out.flip();
+        client.out = out;
+        write(key, client);
+    }
+
+    /**
+     * Runs the server without the window.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        int port = DEFAULT_PORT;
+        File profile = null;
+        File colors = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--profile":
+                        profile = new File(args[++i]);
+                        break;
+                    case "--colors":
+                        colors = new File(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        }
+                        port = Integer.parseInt(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex instanceof ArrayIndexOutOfBoundsException ? "missing option value" : ex.getMessage());
+            System.err.println("usage: SamplingServer [--profile file.icc] [--colors file] [port]");
+            System.exit(2);
+            return;
+        }
+        try {
+            RobotPixelSource screen = new RobotPixelSource();
+            SamplingServer server = new SamplingServer(screen, screen, port);
+            if (profile != null) {
+                server.setCmykTable(new CmykLookupTable(new ICC_ColorSpace(ICC_Profile.getInstance(profile.getAbsolutePath()))));
+            }
+            server.setNamedColors(colors == null ? NamedColorIndex.loadDefault() : NamedColorIndex.load(colors));
+            server.start();
+            server.join();
+        } catch (AWTException | IOException | IllegalArgumentException ex) {
+            Logger.getLogger(SamplingServer.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            // stopped
+        }
+    }
+}
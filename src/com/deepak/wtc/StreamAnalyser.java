@@ -0,0 +1,441 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Analyses a stream of raw rgb24 video frames, e.g. from
+ * 'ffmpeg -f rawvideo -pix_fmt rgb24 -'.
+ *
+ * A reader thread fills fixed size direct byte buffers from the channel and
+ * hands them over a queue to the analysing thread, which gives them back
+ * through a second queue once done, so reading the next frame overlaps the
+ * analysis of the current one and no buffers are allocated per frame. Every
+ * frame the colors at the probe points and the average colors of the
+ * regions are analysed with the same conversions the window shows.
+ *
+ * @author deepak
+ */
+public class StreamAnalyser {
+
+    // default number of frame buffers
+    public static final int DEFAULT_BUFFERS = 3;
+    // the bytes per pixel of rgb24
+    private static final int PIXEL_SIZE = 3;
+    // the frame size
+    private final int width;
+    private final int height;
+    // the probe points, x and y pairs
+    private final int[] probes;
+    // the regions, x, y, width and height quadruples
+    private final int[] regions;
+    // the CMYK lookup table, null if none
+    private final CmykLookupTable cmykTable;
+    // the named colors, null if none
+    private final NamedColorIndex namedColors;
+    // the analysed sample, reused for every probe and region
+    private final ColorSample sample = new ColorSample();
+    // the number of frame buffers
+    private final int bufferCount;
+
+    /**
+     * Creates a stream analyser.
+     *
+     * @param width the frame width
+     * @param height the frame height
+     * @param probes the probe points as x and y pairs
+     * @param regions the regions as x, y, width and height quadruples
+     * @param cmykTable the CMYK lookup table, null for no CMYK values
+     * @param namedColors the named colors, null for no names
+     * @param bufferCount the number of frame buffers, at least 2
+     */
+    public StreamAnalyser(int width, int height, int[] probes, int[] regions,
+            CmykLookupTable cmykTable, NamedColorIndex namedColors, int bufferCount) {
+        if (width <= 0 || height <= 0 || (long) width * height * PIXEL_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid frame size " + width + "x" + height);
+        }
+        if (bufferCount < 2) {
+            throw new IllegalArgumentException("at least 2 buffers are needed");
+        }
+        for (int i = 0; i < probes.length; i += 2) {
+            if (probes[i] < 0 || probes[i] >= width || probes[i + 1] < 0 || probes[i + 1] >= height) {
+                throw new IllegalArgumentException("probe outside the frame: " + probes[i] + "," + probes[i + 1]);
+            }
+        }
+        for (int i = 0; i < regions.length; i += 4) {
+            if (regions[i] < 0 || regions[i + 1] < 0 || regions[i + 2] <= 0 || regions[i + 3] <= 0
+                    || regions[i] + regions[i + 2] > width || regions[i + 1] + regions[i + 3] > height) {
+                throw new IllegalArgumentException("region outside the frame: " + regions[i] + "," + regions[i + 1]
+                        + "," + regions[i + 2] + "," + regions[i + 3]);
+            }
+        }
+        this.width = width;
+        this.height = height;
+        this.probes = probes.clone();
+        this.regions = regions.clone();
+        this.cmykTable = cmykTable;
+        this.namedColors = namedColors;
+        this.bufferCount = bufferCount;
+        // build the table up front like the batch analyser, the first
+        // frames would be converted exactly otherwise
+        if (cmykTable != null) {
+            cmykTable.build();
+        }
+    }
+
+    /*
+     * the reader thread class
+     *
+     * reads whole frames into the free buffers and queues them, a buffer
+     * with no remaining bytes ( the end marker ) is queued at the end
+     */
+    private class FrameReader extends Thread {
+
+        // the channel the frames are read from
+        private final ReadableByteChannel channel;
+        // the free and the filled buffers
+        private final BlockingQueue<ByteBuffer> free;
+        private final BlockingQueue<ByteBuffer> full;
+        // the end marker
+        private final ByteBuffer end;
+        // the read error, null if none
+        private volatile IOException error = null;
+
+        private FrameReader(ReadableByteChannel channel, BlockingQueue<ByteBuffer> free,
+                BlockingQueue<ByteBuffer> full, ByteBuffer end) {
+            super("FrameReader");
+            setDaemon(true);
+            this.channel = channel;
+            this.free = free;
+            this.full = full;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    ByteBuffer frame = free.take();
+                    frame.clear();
+                    while (frame.hasRemaining()) {
+                        if (channel.read(frame) < 0) {
+                            if (frame.position() > 0) {
+                                Logger.getLogger(StreamAnalyser.class.getName()).log(Level.WARNING,
+                                        "dropped an incomplete last frame of {0} bytes", frame.position());
+                            }
+                            return;
+                        }
+                    }
+                    frame.flip();
+                    full.put(frame);
+                }
+            } catch (IOException ex) {
+                error = ex;
+            } catch (InterruptedException ex) {
+                // stop reading
+            } finally {
+                full.offer(end);
+            }
+        }
+    }
+
+    /**
+     * Analyses the frames of a channel until it ends.
+     *
+     * @param channel the channel of the rgb24 frames
+     * @param json true for a json object per frame, false for csv rows
+     * @param out the writer of the results, flushed after every frame, the
+     * analysis stops once it fails
+     * @return the number of frames analysed
+     * @throws IOException if the channel cannot be read
+     * @throws InterruptedException if interrupted while waiting for a frame
+     */
+    public long analyse(ReadableByteChannel channel, boolean json, PrintWriter out)
+            throws IOException, InterruptedException {
+        int frameSize = width * height * PIXEL_SIZE;
+        BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(bufferCount);
+        BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(ByteBuffer.allocateDirect(frameSize));
+        }
+        ByteBuffer end = ByteBuffer.allocate(0);
+        FrameReader reader = new FrameReader(channel, free, full, end);
+        reader.start();
+        if (!json) {
+            out.println("frame,kind,x,y,width,height,red,green,blue,hex,hue,saturation,brightness,"
+                    + "cyan,magenta,yellow,key,name");
+        }
+        StringBuilder line = new StringBuilder();
+        long frames = 0;
+        long start = System.nanoTime();
+        try {
+            ByteBuffer frame;
+            while ((frame = full.take()) != end) {
+                line.setLength(0);
+                if (json) {
+                    line.append("{\"frame\":").append(frames).append(",\"probes\":[");
+                }
+                for (int i = 0; i < probes.length; i += 2) {
+                    int rgb = pixel(frame, probes[i], probes[i + 1]);
+                    sample.set(probes[i], probes[i + 1], rgb, cmykTable, namedColors);
+                    append(line, json, frames, "probe", 1, 1, i == 0);
+                }
+                if (json) {
+                    line.append("],\"regions\":[");
+                }
+                for (int i = 0; i < regions.length; i += 4) {
+                    int rgb = average(frame, regions[i], regions[i + 1], regions[i + 2], regions[i + 3]);
+                    sample.set(regions[i], regions[i + 1], rgb, cmykTable, namedColors);
+                    append(line, json, frames, "region", regions[i + 2], regions[i + 3], i == 0);
+                }
+                if (json) {
+                    line.append("]}\n");
+                }
+                // the buffer can be refilled while the results are written
+                free.put(frame);
+                out.print(line);
+                out.flush();
+                if (out.checkError()) {
+                    // the reader of the results went away, a closed pipe
+                    Logger.getLogger(StreamAnalyser.class.getName()).log(Level.WARNING,
+                            "stopped after {0} frames, the results cannot be written", frames);
+                    break;
+                }
+                frames++;
+            }
+        } finally {
+            reader.interrupt();
+        }
+        if (reader.error != null) {
+            throw reader.error;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Logger.getLogger(StreamAnalyser.class.getName()).log(Level.INFO, "analysed {0} frames, {1} fps",
+                new Object[]{frames, String.format(Locale.ROOT, "%.1f", seconds > 0 ? frames / seconds : 0)});
+        return frames;
+    }
+
+    /*
+     * method to get the color of a pixel of a frame
+     */
+    private int pixel(ByteBuffer frame, int x, int y) {
+        int i = (y * width + x) * PIXEL_SIZE;
+        return 0xFF000000 | (frame.get(i) & 0xFF) << 16 | (frame.get(i + 1) & 0xFF) << 8 | (frame.get(i + 2) & 0xFF);
+    }
+
+    /*
+     * method to get the average color of a region of a frame, rounded like
+     * the average of the region sampler
+     */
+    private int average(ByteBuffer frame, int x, int y, int w, int h) {
+        long red = 0, green = 0, blue = 0;
+        for (int row = y; row < y + h; row++) {
+            int i = (row * width + x) * PIXEL_SIZE;
+            int rowEnd = i + w * PIXEL_SIZE;
+            for (; i < rowEnd; i += PIXEL_SIZE) {
+                red += frame.get(i) & 0xFF;
+                green += frame.get(i + 1) & 0xFF;
+                blue += frame.get(i + 2) & 0xFF;
+            }
+        }
+        long count = (long) w * h;
+        long half = count / 2;
+        return 0xFF000000 | (int) ((red + half) / count) << 16 | (int) ((green + half) / count) << 8
+                | (int) ((blue + half) / count);
+    }
+
+    /*
+     * method to append the current sample as a json object or a csv row
+     */
+    private void append(StringBuilder line, boolean json, long frame, String kind, int w, int h, boolean first) {
+        if (json) {
+            if (!first) {
+                line.append(',');
+            }
+            if (kind.equals("region")) {
+                // the region size goes into the object before its color
+                line.append("{\"width\":").append(w).append(",\"height\":").append(h).append(',');
+                int mark = line.length();
+                SamplingServer.appendSample(line, sample);
+                // drop the opening brace of the sample object
+                line.deleteCharAt(mark);
+            } else {
+                SamplingServer.appendSample(line, sample);
+            }
+            return;
+        }
+        line.append(frame).append(',').append(kind)
+                .append(',').append(sample.getX()).append(',').append(sample.getY())
+                .append(',').append(w).append(',').append(h)
+                .append(',').append(sample.getRed()).append(',').append(sample.getGreen())
+                .append(',').append(sample.getBlue()).append(',').append(sample.getHex())
+                .append(',').append(sample.getHue()).append(',').append(sample.getSaturation())
+                .append(',').append(sample.getBrightness());
+        if (sample.hasCMYK()) {
+            line.append(',').append(sample.getCyan()).append(',').append(sample.getMagenta())
+                    .append(',').append(sample.getYellow()).append(',').append(sample.getKey());
+        } else {
+            line.append(",,,,");
+        }
+        line.append(',');
+        if (sample.getColorName() != null) {
+            line.append(BatchAnalyser.csv(sample.getColorName()));
+        }
+        line.append('\n');
+    }
+
+    /*
+     * method to parse a list of comma separated integers of a given count
+     */
+    private static int[] parseInts(String value, int count, String what) {
+        String[] parts = value.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(what + " needs " + count + " comma separated values: " + value);
+        }
+        int[] ints = new int[count];
+        for (int i = 0; i < count; i++) {
+            ints[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ints;
+    }
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        int width = 0, height = 0;
+        String format = "csv";
+        File input = null;
+        File output = null;
+        File profile = null;
+        boolean names = false;
+        File colors = null;
+        int buffers = DEFAULT_BUFFERS;
+        List<int[]> probeList = new ArrayList<>();
+        List<int[]> regionList = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--probe":
+                        probeList.add(parseInts(args[++i], 2, "probe"));
+                        break;
+                    case "--region":
+                        regionList.add(parseInts(args[++i], 4, "region"));
+                        break;
+                    case "--format":
+                        format = args[++i].toLowerCase(Locale.ROOT);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("unknown format " + format);
+                        }
+                        break;
+                    case "--input":
+                        input = new File(args[++i]);
+                        break;
+                    case "--output":
+                        output = new File(args[++i]);
+                        break;
+                    case "--profile":
+                        profile = new File(args[++i]);
+                        break;
+                    case "--names":
+                        names = true;
+                        break;
+                    case "--colors":
+                        colors = new File(args[++i]);
+                        break;
+                    case "--buffers":
+                        buffers = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        if (args[i].startsWith("--") || width != 0) {
+                            throw new IllegalArgumentException("unknown option " + args[i]);
+                        }
+                        int[] size = parseInts(args[i].toLowerCase(Locale.ROOT).replace('x', ','), 2, "frame size");
+                        width = size[0];
+                        height = size[1];
+                }
+            }
+            if (width == 0) {
+                throw new IllegalArgumentException("no frame size given");
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            System.err.println(ex instanceof ArrayIndexOutOfBoundsException ? "missing option value" : ex.getMessage());
+            System.err.println("usage: StreamAnalyser [--probe x,y]... [--region x,y,w,h]... [--format csv|json]"
+                    + " [--input file] [--output file] [--profile file.icc] [--names] [--colors file] [--buffers n] WIDTHxHEIGHT");
+            System.exit(2);
+            return;
+        }
+        // by default the center pixel and the whole frame
+        if (probeList.isEmpty() && regionList.isEmpty()) {
+            probeList.add(new int[]{width / 2, height / 2});
+            regionList.add(new int[]{0, 0, width, height});
+        }
+        int[] probes = new int[2 * probeList.size()];
+        for (int i = 0; i < probeList.size(); i++) {
+            System.arraycopy(probeList.get(i), 0, probes, 2 * i, 2);
+        }
+        int[] regions = new int[4 * regionList.size()];
+        for (int i = 0; i < regionList.size(); i++) {
+            System.arraycopy(regionList.get(i), 0, regions, 4 * i, 4);
+        }
+        try {
+            CmykLookupTable table = profile == null ? null
+                    : new CmykLookupTable(new ICC_ColorSpace(ICC_Profile.getInstance(profile.getAbsolutePath())));
+            StreamAnalyser analyser = new StreamAnalyser(width, height, probes, regions, table,
+                    colors != null ? NamedColorIndex.load(colors) : names ? NamedColorIndex.loadDefault() : null, buffers);
+            try (FileChannel channel = (input == null ? new FileInputStream(FileDescriptor.in)
+                    : new FileInputStream(input)).getChannel();
+                    PrintWriter out = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(output == null
+                            ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(output), 1 << 16),
+                            StandardCharsets.UTF_8))) {
+                analyser.analyse(channel, format.equals("json"), out);
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            Logger.getLogger(StreamAnalyser.class.getName()).log(Level.SEVERE, null, ex);
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            // stopped
+        }
+    }
+}
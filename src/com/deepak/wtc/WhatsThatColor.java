@@ -23,26 +23,37 @@
 package com.deepak.wtc;
 
 import java.awt.AWTException;
+import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.MouseInfo;
+import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Point;
-import java.awt.Robot;
-import java.awt.color.ColorSpace;
-import java.awt.color.ICC_ColorSpace;
-import java.awt.color.ICC_Profile;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.ItemEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JComponent;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
 import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  *
@@ -52,62 +63,99 @@ public class WhatsThatColor extends javax.swing.JFrame {
 
     // the point object that stores the current mouse pointer location
     private Point mouseLocation = null;
-    // the robot object to get the screen pixel color at a paticular coordinate
-    private Robot robot = null;
-    // the pixel color
-    private Color color = null;
-    // the HSB color array 
-    private float HSB[] = null;
-    // the CMYK color values
-    private float CMYK[] = null;
-    // ICC Profile setting variables
-    private ColorSpace colorSpace = null;
-    // profile file array
-    private File profiles[] = null;
-    // profile file names
-    private String profileNames[] = null;
+    // the source of the pixel colors
+    private PixelSource pixelSource = null;
+    // the source of the pointer location
+    private PointerSource pointerSource = null;
+    // the exchange the analyser thread publishes the analysed samples to and
+    // the event dispatch thread takes the latest sample from
+    private final SampleExchange sampleExchange = new SampleExchange();
+    // the sample currently shown, only used on the event dispatch thread
+    private ColorSample shownSample = null;
+    // the timer which shows the latest sample at most once per display frame
+    private Timer renderTimer = null;
+    // the sampler which reads the region around the pointer
+    // the initial size and mode can be set with the 'wtc.region' and 'wtc.mode' system properties
+    private final RegionSampler regionSampler = new RegionSampler(initialMode(), Integer.getInteger("wtc.region", 1));
+    // interval of the render timer in milliseconds, about one 60 hz display frame
+    private static final int RENDER_INTERVAL = 16;
+    // the CMYK lookup table of the selected profile
+    // volatile as it is set on the event dispatch thread and read by the analyser
+    private volatile CmykLookupTable cmykTable = null;
+    // the time the application was started, to report the time to the first sample
+    private static final long START_TIME = System.nanoTime();
+    // the folder the ICC profiles are loaded from
+    private static final File PROFILES_FOLDER = new File("ICC_PROFILES");
+    // the indexed CMYK profiles, empty until the profiles folder is scanned
+    private List<ProfileIndex.Entry> profiles = Collections.emptyList();
+    // the named color dictionary, null until loaded
+    // volatile as it is set on the event dispatch thread and read by the analyser
+    private volatile NamedColorIndex namedColors = null;
+    // the panel holding the extra result rows below the generated form
+    private JPanel extrasPanel = null;
+    // the nearest named color field
+    private JTextField colorNameTextField = null;
+    // the CIELAB, LCh and contrast ratio fields
+    private JTextField labTextField = null;
+    private JTextField lchTextField = null;
+    private JTextField contrastTextField = null;
+    // the color pinned as the reference of the contrast ratio
+    // volatile as it is set on the event dispatch thread and read by the analyser
+    private volatile int referenceColor = ColorSample.NO_REFERENCE;
+    // the cache of the parsed profiles
+    // the memory budget can be set with the 'wtc.profile.cache' system property ( in megabytes )
+    private final ColorSpaceCache colorSpaceCache = new ColorSpaceCache();
     // default combobox model for combobox input data
-    private DefaultComboBoxModel defaultComboBoxModel = null;
-    // do processing flag which controls the color analysis process
-    // this flag is specified as volatile as if not then the color analyser 
-    // function wont work. specifies it may change from anyother part of the program. 
-    private volatile boolean doProcessing = false;
+    private DefaultComboBoxModel<String> defaultComboBoxModel = null;
+    // the scheduler which paces the color analysis process
+    // the target rate can be set with the 'wtc.rate' system property ( in hertz )
+    private final SamplingScheduler scheduler = new SamplingScheduler(
+            Double.parseDouble(System.getProperty("wtc.rate", String.valueOf(SamplingScheduler.DEFAULT_RATE))),
+            SamplingScheduler.DEFAULT_MAX_BACKOFF);
+    // the history of the published samples
+    // the capacity can be set with the 'wtc.history' system property ( in samples )
+    private final ColorHistory history = new ColorHistory();
+    // the sequence number of the history sample shown, -1 while showing the live samples
+    // only used on the event dispatch thread
+    private long historyPosition = -1;
+    // the loopback server answering color queries of scripts, null if not started
+    // started with the 'wtc.server' system property ( the port )
+    private SamplingServer samplingServer = null;
+    // the counters and stage latencies of the analysis, null if disabled
+    // with the 'wtc.metrics' system property
+    private final AnalyserMetrics metrics = AnalyserMetrics.create();
+    // the loupe showing the pixels around the pointer enlarged
+    // shown from the start with the 'wtc.loupe' system property
+    private final MagnifierPanel magnifier = new MagnifierPanel();
+    // the detector logging the settled color changes under the pointer, null if not started
+    // started with the 'wtc.events' system property ( the CIE76 threshold )
+    private ChangeDetector changeDetector = null;
+    // the track of the pointer color
+    private ChangeDetector.Track pointerTrack = null;
+    // the extras panel row holding the loupe
+    private JPanel magnifierRow = null;
 
     /**
-     * Creates new form WhatsThatColor
+     * Creates new form WhatsThatColor reading the live screen
      */
     public WhatsThatColor() {
-        // load the profiles
-        profiles = loadICCProfiles();
-        // if profiles array equal to null or no of profiles equals to 0
-        if (profiles == null || profiles.length == 0) {
-            // add a single profile name
-            profileNames = new String[1];
-            // set the info string
-            profileNames[0] = "No Profiles Present!";
-        } else {
-            // create profile names array with the profiles file array length
-            profileNames = new String[profiles.length];
-            // sequentially set the profile names to the profile name array
-            String fileName;
-            for (int i = 0; i < profiles.length; i++) {
-                fileName = profiles[i].getName();
-                // remove the extension from the file name
-                profileNames[i] = fileName.substring(0, fileName.length() - 4);
-            }
-            // load the first profile
-            try {
-                colorSpace = new ICC_ColorSpace(
-                        ICC_Profile.getInstance(
-                        profiles[0].getAbsolutePath()));
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(null, "Could NOT load profile!", "IOException", JOptionPane.ERROR_MESSAGE);
-            }
-        }
-        // creat the default combobox model with the profile names
-        defaultComboBoxModel = new DefaultComboBoxModel(profileNames);
+        this(null, null);
+    }
+
+    /**
+     * Creates new form WhatsThatColor reading from the given sources
+     *
+     * @param pixelSource the pixel source, null for the screen
+     * @param pointerSource the pointer source, null for the mouse
+     */
+    public WhatsThatColor(PixelSource pixelSource, PointerSource pointerSource) {
+        // creat the default combobox model, the profiles are added once
+        // the profiles folder has been scanned in the background
+        defaultComboBoxModel = new DefaultComboBoxModel<>(new String[]{"Loading Profiles..."});
         // set the profiles in auto generated code
         initComponents();
+        // add the extra result rows below the generated form
+        addExtrasPanel();
 
         // below is the code to add key listner 
         // for SPACE key typed event on the frame
@@ -120,54 +168,500 @@ public class WhatsThatColor extends javax.swing.JFrame {
         content.registerKeyboardAction(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                // if processing
-                if (doProcessing) {
-                    // stop processing
-                    doProcessing = false;
-                } else {
-                    // start processing
-                    doProcessing = true;
+                // pause or resume the processing
+                scheduler.toggle();
+                // back to the live samples, starting from the last one
+                if (!scheduler.isPaused() && historyPosition >= 0) {
+                    showHistory(history.getCount() - 1);
+                    historyPosition = -1;
+                    showSamplingTitle();
                 }
             }
         }, stroke, JComponent.WHEN_IN_FOCUSED_WINDOW);
+        // the LEFT and RIGHT keys pause the processing and step through the history
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrubHistory(-1);
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                scrubHistory(1);
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        // the D key shows the analysis metrics
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showMetrics();
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_D, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        if (metrics != null) {
+            metrics.setExchange(sampleExchange);
+            metrics.register();
+        }
+        // the M key cycles through the region sampling modes
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                regionSampler.setMode(regionSampler.getMode().next());
+                showSamplingTitle();
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_M, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        // the R key pins the shown color as the contrast reference, SHIFT R unpins it
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pinReference(shownSample == null ? ColorSample.NO_REFERENCE : shownSample.getRGB());
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_R, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pinReference(ColorSample.NO_REFERENCE);
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_R, KeyEvent.SHIFT_DOWN_MASK), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        // the L key shows and hides the loupe
+        content.registerKeyboardAction(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showMagnifier(!magnifier.isActive());
+            }
+        }, KeyStroke.getKeyStroke(KeyEvent.VK_L, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        // the + and - keys grow and shrink the sampled region
+        ActionListener grow = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                regionSampler.setSize(regionSampler.getSize() + 2);
+                showSamplingTitle();
+            }
+        };
+        ActionListener shrink = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                regionSampler.setSize(regionSampler.getSize() - 2);
+                showSamplingTitle();
+            }
+        };
+        content.registerKeyboardAction(grow, KeyStroke.getKeyStroke(KeyEvent.VK_ADD, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        content.registerKeyboardAction(grow, KeyStroke.getKeyStroke(KeyEvent.VK_EQUALS, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        content.registerKeyboardAction(shrink, KeyStroke.getKeyStroke(KeyEvent.VK_SUBTRACT, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        content.registerKeyboardAction(shrink, KeyStroke.getKeyStroke(KeyEvent.VK_MINUS, 0), JComponent.WHEN_IN_FOCUSED_WINDOW);
+        showSamplingTitle();
+
+        // show the published samples on every display frame
+        renderTimer = new Timer(RENDER_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // the loupe only repaints itself when a new capture was published
+                magnifier.update();
+                ColorSample sample = sampleExchange.take();
+                if (historyPosition >= 0) {
+                    // a history sample is shown, the live sample is shown again on resume
+                    sampleExchange.recycle(sample);
+                } else {
+                    showSample(sample);
+                }
+            }
+        });
+        renderTimer.setCoalesce(true);
+        renderTimer.start();
 
         try {
-            // initilize the hsb color array with size 3 as for h,s and b.
-            HSB = new float[3];
-            // initilize the cmyk color array with size 4 as for c, m, y and k.
-            CMYK = new float[4];
-            // initilize the robot object
-            robot = new Robot();
-            // set processing as true
-            doProcessing = true;
+            // default to the live screen for the sources not given
+            if (pixelSource == null || pointerSource == null) {
+                RobotPixelSource screen = new RobotPixelSource();
+                pixelSource = pixelSource == null ? screen : pixelSource;
+                pointerSource = pointerSource == null ? screen : pointerSource;
+            }
+            this.pixelSource = pixelSource;
+            this.pointerSource = pointerSource;
+            // open the capture log before the analyser records into the history
+            openCaptureLog();
+            // the detector is fed by the analyser
+            startChangeDetector();
             // create and start the color analyser thread
             new ColorAnalyser().start();
+            // start the sampling server if asked for
+            startSamplingServer();
         } catch (AWTException ex) {
             Logger.getLogger(WhatsThatColor.class.getName()).log(Level.SEVERE, null, ex);
         }
+        // load the profiles
+        loadICCProfiles();
+        // load the color names
+        loadColorNames();
     }
 
     /*
-     * method to load all ICC profiles from the profiles folder
+     * method to add the panel with the extra result rows below the form
+     */
+    private void addExtrasPanel() {
+        JPanel form = (JPanel) getContentPane();
+        extrasPanel = new JPanel();
+        extrasPanel.setLayout(new BoxLayout(extrasPanel, BoxLayout.Y_AXIS));
+        extrasPanel.setBorder(BorderFactory.createEmptyBorder(0, 12, 12, 12));
+        // the generated form stays on top
+        JPanel root = new JPanel(new BorderLayout());
+        root.add(form, BorderLayout.CENTER);
+        root.add(extrasPanel, BorderLayout.SOUTH);
+        setContentPane(root);
+        // the nearest named color row
+        colorNameTextField = new JTextField();
+        colorNameTextField.setEditable(false);
+        extrasPanel.add(createRow("Name", colorNameTextField));
+        // the perceptual rows
+        labTextField = new JTextField();
+        labTextField.setEditable(false);
+        extrasPanel.add(createRow("Lab", labTextField));
+        lchTextField = new JTextField();
+        lchTextField.setEditable(false);
+        extrasPanel.add(createRow("LCh", lchTextField));
+        contrastTextField = new JTextField();
+        contrastTextField.setEditable(false);
+        extrasPanel.add(createRow("Contrast", contrastTextField));
+        // the loupe row
+        magnifierRow = createRow("Loupe", magnifier);
+        extrasPanel.add(magnifierRow);
+        showMagnifier(Boolean.getBoolean("wtc.loupe"));
+    }
+
+    /*
+     * method to pin the reference color of the contrast ratio, the shown
+     * sample is analysed again right away as the analyser may be paused
+     */
+    private void pinReference(int rgb) {
+        referenceColor = rgb;
+        ColorSample shown = shownSample;
+        if (shown != null) {
+            showSample(new ColorSample().set(shown.getX(), shown.getY(), shown.getRGB(), cmykTable, namedColors,
+                    rgb, null));
+        }
+    }
+
+    /*
+     * method to show or hide the loupe, the analyser only captures for
+     * the loupe while it is shown
+     */
+    private void showMagnifier(boolean show) {
+        magnifier.setActive(show);
+        magnifierRow.setVisible(show);
+        pack();
+    }
+
+    /*
+     * method to create a labelled row of the extras panel
+     */
+    private JPanel createRow(String text, JComponent field) {
+        JPanel row = new JPanel(new BorderLayout(6, 0));
+        JLabel label = new JLabel(text);
+        // align the fields with the widest label of the form
+        label.setPreferredSize(new Dimension(iccProfileLabel.getPreferredSize().width, label.getPreferredSize().height));
+        row.add(label, BorderLayout.WEST);
+        row.add(field, BorderLayout.CENTER);
+        return row;
+    }
+
+    /*
+     * method to load the named color dictionary in the background
+     *
+     * the dictionary can be set with the 'wtc.colors' system property,
+     * otherwise the built in CSS color names are used
+     */
+    private void loadColorNames() {
+        new SwingWorker<NamedColorIndex, Void>() {
+            @Override
+            protected NamedColorIndex doInBackground() throws IOException {
+                String dictionary = System.getProperty("wtc.colors");
+                return dictionary == null ? NamedColorIndex.loadDefault() : NamedColorIndex.load(new File(dictionary));
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    namedColors = get();
+                    if (samplingServer != null) {
+                        samplingServer.setNamedColors(namedColors);
+                    }
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "could not load the color names", ex);
+                    colorNameTextField.setText("No Color Names!");
+                }
+            }
+        }.execute();
+    }
+
+    /*
+     * method to show the sampling region and the history position in the
+     * frame title
+     */
+    private void showSamplingTitle() {
+        String title = regionSampler.getSize() == 1 ? "What's That Color"
+                : "What's That Color - " + regionSampler;
+        if (historyPosition >= 0) {
+            long last = history.getCount() - 1;
+            long age = history.getTime(last) - history.getTime(historyPosition);
+            if (history.isAvailable(historyPosition)) {
+                title += String.format(" - History %d (%.1f s ago)", historyPosition - last, age / 1e9);
+            }
+        }
+        setTitle(title);
+    }
+
+    /*
+     * method to open the capture log set with the 'wtc.log' system property
+     *
+     * the samples of an existing log are replayed into the history so the
+     * earlier sessions can be stepped through, the new samples are appended
+     */
+    private void openCaptureLog() {
+        String path = System.getProperty("wtc.log");
+        if (path == null) {
+            return;
+        }
+        File file = new File(path);
+        try {
+            if (file.length() > 0) {
+                long start = System.nanoTime();
+                long replayed = CaptureLog.replay(file, history);
+                Logger.getLogger(WhatsThatColor.class.getName()).log(Level.FINE,
+                        "replayed {0} samples in {1} ms", new Object[]{replayed, (System.nanoTime() - start) / 1000000});
+            }
+            final CaptureLog log = new CaptureLog(file);
+            history.setLog(log);
+            // flush and trim the log on exit
+            Runtime.getRuntime().addShutdownHook(new Thread("CaptureLogCloser") {
+                @Override
+                public void run() {
+                    // detach the log first, so an append racing with the
+                    // close fails quietly instead of reporting a broken log
+                    history.setLog(null);
+                    try {
+                        log.close();
+                    } catch (IOException ex) {
+                        Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "could not close " + log.getFile(), ex);
+                    }
+                }
+            });
+        } catch (IOException ex) {
+            Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "could not open the capture log " + file, ex);
+        }
+    }
+
+    /*
+     * method to show the analysis metrics, they are logged as well
+     */
+    private void showMetrics() {
+        if (metrics == null) {
+            JOptionPane.showMessageDialog(this, "Metrics are disabled!", "Metrics", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String dump = metrics.dump() + "sampling: " + scheduler;
+        Logger.getLogger(WhatsThatColor.class.getName()).log(Level.INFO, "metrics:{0}{1}",
+                new Object[]{System.lineSeparator(), dump});
+        JTextArea text = new JTextArea(dump);
+        text.setEditable(false);
+        text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JOptionPane.showMessageDialog(this, text, "Metrics", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    /*
+     * method to get the sampling mode set with the 'wtc.mode' system
+     * property, average for an unknown mode
+     */
+    private static RegionSampler.Mode initialMode() {
+        String mode = System.getProperty("wtc.mode", "AVERAGE");
+        try {
+            return RegionSampler.Mode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "invalid wtc.mode {0}, expected one of {1}, using AVERAGE",
+                    new Object[]{mode, Arrays.toString(RegionSampler.Mode.values()).toUpperCase(Locale.ROOT)});
+            return RegionSampler.Mode.AVERAGE;
+        }
+    }
+
+    /*
+     * method to start the change detector logging the settled color
+     * changes under the pointer if a threshold is set with the 'wtc.events'
+     * system property
      */
-    private File[] loadICCProfiles() {
-        // reference the profiles folder
-        File f = new File("ICC_PROFILES");
-        // if doesnt exists then make one and return null indication no profiles
-        if (!f.exists()) {
-            f.mkdir();
-            return null;
-        }
-        // else return list of files with the profile files extension
-        return f.listFiles(new FileFilter() {
+    private void startChangeDetector() {
+        String threshold = System.getProperty("wtc.events");
+        if (threshold == null) {
+            return;
+        }
+        try {
+            changeDetector = new ChangeDetector(Float.parseFloat(threshold), ChangeDetector.DEFAULT_HYSTERESIS,
+                    ChangeDetector.DEFAULT_DEBOUNCE);
+        } catch (IllegalArgumentException ex) {
+            Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "invalid wtc.events " + threshold, ex);
+            return;
+        }
+        pointerTrack = changeDetector.track("pointer");
+        changeDetector.addListener(new ChangeDetector.Listener() {
             @Override
-            public boolean accept(File pathname) {
-                // only accept files with extension '.icc'
-                return pathname.getName().toLowerCase().endsWith(".icc");
+            public void colorsChanged(List<ChangeDetector.Event> events) {
+                for (ChangeDetector.Event event : events) {
+                    Logger.getLogger(WhatsThatColor.class.getName()).log(Level.INFO, "color change: {0}", event);
+                }
             }
         });
     }
 
+    /*
+     * method to start the sampling server on the port set with the
+     * 'wtc.server' system property
+     *
+     * the server reads through its own sources, as the region reads of a
+     * robot and the pointer path of an image are not shared between threads
+     */
+    private void startSamplingServer() throws AWTException {
+        Integer port = Integer.getInteger("wtc.server");
+        if (port == null) {
+            return;
+        }
+        PixelSource source = pixelSource;
+        if (pixelSource instanceof RobotPixelSource) {
+            source = new RobotPixelSource();
+        } else if (pixelSource instanceof ImagePixelSource) {
+            source = ((ImagePixelSource) pixelSource).copy();
+        }
+        PointerSource pointer = pointerSource;
+        if (pointerSource == pixelSource && source instanceof PointerSource) {
+            pointer = (PointerSource) source;
+        } else if (pointerSource instanceof ImagePixelSource) {
+            pointer = ((ImagePixelSource) pointerSource).copy();
+        }
+        try {
+            samplingServer = new SamplingServer(source, pointer, port);
+            samplingServer.setCmykTable(cmykTable);
+            samplingServer.setNamedColors(namedColors);
+            samplingServer.start();
+        } catch (IOException ex) {
+            Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "could not start the sampling server", ex);
+        }
+    }
+
+    /*
+     * method to step through the history, pausing the processing first
+     */
+    private void scrubHistory(int step) {
+        scheduler.pause();
+        long first = history.getFirst();
+        long last = history.getCount() - 1;
+        if (last < first) {
+            // nothing recorded yet
+            return;
+        }
+        // start from the last sample, which is the one shown
+        long position = historyPosition < 0 ? last : historyPosition;
+        position = Math.max(first, Math.min(last, position + step));
+        historyPosition = position;
+        showHistory(position);
+        showSamplingTitle();
+    }
+
+    /*
+     * method to show a sample of the history, analysed with the current
+     * profile and dictionary
+     */
+    private void showHistory(long sequence) {
+        int x = history.getX(sequence);
+        int y = history.getY(sequence);
+        int rgb = history.getRGB(sequence);
+        // the values are only valid if the record was not overwritten while reading
+        if (history.isAvailable(sequence)) {
+            showSample(new ColorSample().set(x, y, rgb, cmykTable, namedColors, referenceColor, null));
+        }
+    }
+
+    /*
+     * method to load all ICC profiles from the profiles folder
+     *
+     * the folder is scanned in the background, only the profile headers are
+     * read ( and only for new or changed profiles ) and the profiles are then
+     * added to the combobox. a profile is only parsed when it is selected
+     */
+    private void loadICCProfiles() {
+        new SwingWorker<List<ProfileIndex.Entry>, Void>() {
+            @Override
+            protected List<ProfileIndex.Entry> doInBackground() throws InterruptedException {
+                long start = System.nanoTime();
+                ProfileIndex index = new ProfileIndex(PROFILES_FOLDER);
+                List<ProfileIndex.Entry> entries = new ArrayList<>();
+                // only CMYK profiles can be used for the CMYK values
+                for (ProfileIndex.Entry entry : index.scan()) {
+                    if (entry.isCMYK()) {
+                        entries.add(entry);
+                    }
+                }
+                Logger.getLogger(WhatsThatColor.class.getName()).log(Level.FINE,
+                        "found {0} profiles in {1} ms, {2} headers read",
+                        new Object[]{entries.size(), (System.nanoTime() - start) / 1000000, index.getHeadersRead()});
+                return entries;
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    profiles = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(WhatsThatColor.class.getName()).log(Level.SEVERE, null, ex);
+                }
+                defaultComboBoxModel.removeAllElements();
+                // if no of profiles equals to 0 set the info string
+                if (profiles.isEmpty()) {
+                    defaultComboBoxModel.addElement("No Profiles Present!");
+                }
+                // adding the first profile selects it, which loads it
+                for (ProfileIndex.Entry entry : profiles) {
+                    defaultComboBoxModel.addElement(entry.getName());
+                }
+            }
+        }.execute();
+    }
+
+    /*
+     * method to get a profile from the cache in the background and select it
+     * once loaded. the neighbouring profiles in the combobox are prefetched
+     */
+    private void loadProfile(final int index) {
+        final File file = profiles.get(index).getFile();
+        new SwingWorker<CmykLookupTable, Void>() {
+            @Override
+            protected CmykLookupTable doInBackground() throws IOException, InterruptedException {
+                return colorSpaceCache.get(file);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    CmykLookupTable table = get();
+                    // ignore the profile if another one got selected meanwhile
+                    if (iccProfileComboBox.getSelectedIndex() == index) {
+                        cmykTable = table;
+                        if (samplingServer != null) {
+                            samplingServer.setCmykTable(table);
+                        }
+                        // the user is likely to try the next or previous profile
+                        if (index + 1 < profiles.size()) {
+                            colorSpaceCache.prefetch(profiles.get(index + 1).getFile());
+                        }
+                        if (index > 0) {
+                            colorSpaceCache.prefetch(profiles.get(index - 1).getFile());
+                        }
+                    }
+                    Logger.getLogger(WhatsThatColor.class.getName()).log(Level.FINE, "profile cache: {0}", colorSpaceCache);
+                } catch (InterruptedException | ExecutionException ex) {
+                    Logger.getLogger(WhatsThatColor.class.getName()).log(Level.WARNING, "could not load " + file, ex);
+                    JOptionPane.showMessageDialog(null, "Could NOT load profile!", "IOException", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     /*
      * the ColorAnalyser thread class
      * 
@@ -175,61 +669,223 @@ public class WhatsThatColor extends javax.swing.JFrame {
      */
     private class ColorAnalyser extends Thread {
 
+        // interval between two scheduler statistics log entries
+        private static final long REPORT_INTERVAL = 10000000000L;
+
+        public ColorAnalyser() {
+            super("ColorAnalyser");
+            // do not keep the vm alive once the frame is closed
+            setDaemon(true);
+        }
+
         @Override
         public void run() {
-            // run forever
-            while (true) {
-                // process only if do processing is on/true
-                if (doProcessing) {
+            // the current and previous pointer location and pixel color
+            mouseLocation = new Point();
+            Point lastLocation = new Point(Integer.MIN_VALUE, Integer.MIN_VALUE);
+            int lastRGB = 0;
+            // the CMYK table the last sample was analysed with
+            CmykLookupTable lastTable = null;
+            // the dictionary the last sample was analysed with
+            NamedColorIndex lastNamedColors = null;
+            // the reference color the last sample was analysed with
+            int lastReference = ColorSample.NO_REFERENCE;
+            // whether a sample has been published yet
+            boolean published = false;
+            // whether the last sample differed from the one before
+            boolean changed = true;
+            // the loupe capture shared with the region sampler, and a copy of
+            // the last published capture to publish only changed captures
+            CapturePixelSource capture = new CapturePixelSource();
+            int[] lastCapture = new int[magnifier.getCaptureSize() * magnifier.getCaptureSize()];
+            // whether the loupe was active and the region size marked in the last capture
+            boolean lastActive = false;
+            int lastRegionSize = 0;
+            long nextReport = System.nanoTime() + REPORT_INTERVAL;
+            // run until interrupted
+            try {
+                while (true) {
+                    // wait for the next tick, parks while processing is paused
+                    scheduler.awaitNextTick(changed);
+                    // time the stages unless the metrics are disabled
+                    long time = metrics == null ? 0 : System.nanoTime();
                     // get the current mouse location on screen
-                    mouseLocation = MouseInfo.getPointerInfo().getLocation();
-                    // get the pixel color at that coordinate
-                    color = robot.getPixelColor(mouseLocation.x, mouseLocation.y);
-                    // set the color panel background color
-                    colorPanel.setBackground(color);
-                    // show the rgb color values
-                    redTextField.setText(String.valueOf(color.getRed()));
-                    greenTextField.setText(String.valueOf(color.getGreen()));
-                    blueTextField.setText(String.valueOf(color.getBlue()));
-                    // get the hsb color values from the rgb values
-                    Color.RGBtoHSB(color.getRed(), color.getGreen(), color.getBlue(), HSB);
-                    // show the hsb color values 
-                    // hue in degrees
-                    hueTextField.setText(String.valueOf(getDegree(HSB[0])));
-                    // saturation in percentage
-                    saturationTextField.setText(String.valueOf(getPercentage(HSB[1])));
-                    // brightness in percentage
-                    brightnessTextField.setText(String.valueOf(getPercentage(HSB[2])));
-                    // show the hex color value
-                    // using sub string as the alpha value is ignored ( 0x <ff> ff ff ff )
-                    hexTextField.setText(Integer.toHexString(color.getRGB()).substring(2).toUpperCase());
-                    // if color space is present then
-                    if (colorSpace != null) {
-                        // get the cmyk color based on selected ICC profiles.
-                        color.getColorComponents(colorSpace, CMYK);
-                        // set the CMYK values in percentage
-                        cyanTextField.setText(String.valueOf(getPercentage(CMYK[0])));
-                        magentaTextField.setText(String.valueOf(getPercentage(CMYK[1])));
-                        yellowTextField.setText(String.valueOf(getPercentage(CMYK[2])));
-                        keyTextField.setText(String.valueOf(getPercentage(CMYK[3])));
+                    if (!pointerSource.getPointerLocation(mouseLocation)) {
+                        // no pointer, nothing to sample
+                        changed = false;
+                        if (metrics != null) {
+                            metrics.tick();
+                            metrics.noPointer();
+                        }
+                        continue;
+                    }
+                    if (metrics != null) {
+                        long now = System.nanoTime();
+                        metrics.record(AnalyserMetrics.Stage.POINTER, now - time);
+                        time = now;
+                    }
+                    // get the color of the region at that coordinate, while the loupe
+                    // is shown its capture is sampled unless the region is larger
+                    int rgb;
+                    boolean active = magnifier.isActive();
+                    boolean captureChanged = false;
+                    if (active) {
+                        int[] pixels = magnifier.acquire();
+                        capture.capture(pixelSource, mouseLocation.x, mouseLocation.y, magnifier.getCaptureSize(), pixels);
+                        int regionSize = regionSampler.getSize();
+                        rgb = regionSampler.sample(regionSize <= capture.getSize() ? capture : pixelSource,
+                                mouseLocation.x, mouseLocation.y);
+                        // publish the capture only if the loupe would show something new
+                        if (!lastActive || regionSize != lastRegionSize || !Arrays.equals(pixels, lastCapture)) {
+                            System.arraycopy(pixels, 0, lastCapture, 0, lastCapture.length);
+                            magnifier.publish(regionSize);
+                            lastRegionSize = regionSize;
+                            captureChanged = true;
+                        }
+                    } else {
+                        rgb = regionSampler.sample(pixelSource, mouseLocation.x, mouseLocation.y);
+                    }
+                    lastActive = active;
+                    if (metrics != null) {
+                        long now = System.nanoTime();
+                        metrics.record(AnalyserMetrics.Stage.CAPTURE, now - time);
+                        metrics.tick();
+                    }
+                    // feed the change detector on every tick, it times the settling
+                    if (changeDetector != null) {
+                        changeDetector.update(pointerTrack, mouseLocation.x, mouseLocation.y, rgb, System.nanoTime());
+                        changeDetector.flush();
+                    }
+                    CmykLookupTable table = cmykTable;
+                    int reference = referenceColor;
+                    // nothing to analyse if neither the pointer, the color, the profile,
+                    // the dictionary nor the reference changed
+                    changed = !mouseLocation.equals(lastLocation) || rgb != lastRGB
+                            || table != lastTable || namedColors != lastNamedColors
+                            || reference != lastReference || !published;
+                    lastNamedColors = namedColors;
+                    lastReference = reference;
+                    lastLocation.setLocation(mouseLocation);
+                    lastRGB = rgb;
+                    lastTable = table;
+                    if (changed) {
+                        // analyse into a recycled sample and publish it,
+                        // replacing any sample not shown yet
+                        sampleExchange.acquire().set(mouseLocation.x, mouseLocation.y, rgb, table, namedColors,
+                                reference, metrics);
+                        time = metrics == null ? 0 : System.nanoTime();
+                        sampleExchange.publish();
+                        history.record(System.nanoTime(), mouseLocation.x, mouseLocation.y, rgb);
+                        if (metrics != null) {
+                            metrics.record(AnalyserMetrics.Stage.PUBLISH, System.nanoTime() - time);
+                            metrics.sampled();
+                        }
+                        published = true;
+                    } else if (metrics != null) {
+                        metrics.unchanged();
+                    }
+                    // a changing loupe keeps the sampling from backing off
+                    changed |= captureChanged;
+                    // report the achieved rate and jitter
+                    if (System.nanoTime() - nextReport > 0) {
+                        Logger.getLogger(WhatsThatColor.class.getName()).log(Level.FINE, "sampling: {0}", scheduler);
+                        nextReport = System.nanoTime() + REPORT_INTERVAL;
                     }
                 }
+            } catch (InterruptedException ex) {
+                // stop the analysis
+            }
+        }
+    }
+
+    /*
+     * method to show a sample, only the values which differ from the
+     * currently shown sample are updated. called on the event dispatch thread
+     */
+    private void showSample(ColorSample sample) {
+        // nothing new published
+        if (sample == null) {
+            return;
+        }
+        // same values as shown, give the sample back right away
+        if (sample.sameColor(shownSample)) {
+            sampleExchange.recycle(sample);
+            if (metrics != null) {
+                metrics.dropped();
             }
+            return;
+        }
+        long start = metrics == null ? 0 : System.nanoTime();
+        // report the startup time with the first sample
+        if (shownSample == null) {
+            Logger.getLogger(WhatsThatColor.class.getName()).log(Level.INFO,
+                    "time to first sample: {0} ms", (System.nanoTime() - START_TIME) / 1000000);
+        }
+        ColorSample shown = shownSample;
+        // set the color panel background color
+        if (shown == null || shown.getRGB() != sample.getRGB()) {
+            colorPanel.setBackground(new Color(sample.getRGB()));
+            // show the rgb color values
+            showValue(redTextField, sample.getRed(), shown == null ? -1 : shown.getRed());
+            showValue(greenTextField, sample.getGreen(), shown == null ? -1 : shown.getGreen());
+            showValue(blueTextField, sample.getBlue(), shown == null ? -1 : shown.getBlue());
+            // show the hsb color values
+            // hue in degrees, saturation and brightness in percentage
+            showValue(hueTextField, sample.getHue(), shown == null ? -1 : shown.getHue());
+            showValue(saturationTextField, sample.getSaturation(), shown == null ? -1 : shown.getSaturation());
+            showValue(brightnessTextField, sample.getBrightness(), shown == null ? -1 : shown.getBrightness());
+            // show the hex color value
+            hexTextField.setText(sample.getHex());
+            // show the perceptual values
+            labTextField.setText(String.format("L %.1f  a %.1f  b %.1f",
+                    sample.getLightness(), sample.getLabA(), sample.getLabB()));
+            lchTextField.setText(String.format("L %.1f  C %.1f  h %.1f\u00b0",
+                    sample.getLightness(), sample.getChroma(), sample.getLabHue()));
+        }
+        // show the contrast ratio against the pinned color
+        if (shown == null || shown.getRGB() != sample.getRGB() || shown.getReference() != sample.getReference()) {
+            contrastTextField.setText(formatContrast(sample));
+        }
+        // show the nearest named color and how far it is off
+        if (sample.getColorName() != null && (shown == null || !sample.getColorName().equals(shown.getColorName())
+                || sample.getColorNameDistance() != shown.getColorNameDistance())) {
+            colorNameTextField.setText(String.format("%s (\u0394E %.1f)", sample.getColorName(), sample.getColorNameDistance()));
+        }
+        // set the CMYK values in percentage if color space is present
+        if (sample.hasCMYK()) {
+            boolean all = shown == null || !shown.hasCMYK();
+            showValue(cyanTextField, sample.getCyan(), all ? -1 : shown.getCyan());
+            showValue(magentaTextField, sample.getMagenta(), all ? -1 : shown.getMagenta());
+            showValue(yellowTextField, sample.getYellow(), all ? -1 : shown.getYellow());
+            showValue(keyTextField, sample.getKey(), all ? -1 : shown.getKey());
+        }
+        // the previously shown sample is no longer needed
+        shownSample = sample;
+        sampleExchange.recycle(shown);
+        if (metrics != null) {
+            metrics.record(AnalyserMetrics.Stage.RENDER, System.nanoTime() - start);
         }
     }
 
     /*
-     * method to get the percentage value for an float input
+     * method to format the contrast ratio of a sample with its WCAG level
      */
-    private int getPercentage(float f) {
-        return (int) (f * 100);
+    private static String formatContrast(ColorSample sample) {
+        if (sample.getReference() == ColorSample.NO_REFERENCE) {
+            return String.format("luminance %.3f ( R pins a reference )", sample.getLuminance());
+        }
+        double contrast = sample.getContrast();
+        String level = contrast >= 7 ? "AAA" : contrast >= 4.5 ? "AA" : contrast >= 3 ? "AA large" : "fail";
+        return String.format("%.2f:1 against #%s ( %s )", contrast, ColorFormat.hex(sample.getReference()), level);
     }
 
     /*
-     * method to get the degree value for an float input
+     * method to set a text field value if it differs from the shown value
      */
-    private int getDegree(float f) {
-        return (int) (f * 360);
+    private static void showValue(JTextField field, int value, int shownValue) {
+        if (value != shownValue) {
+            field.setText(ColorFormat.valueOf(value));
+        }
     }
 
     /**
@@ -454,17 +1110,11 @@ public class WhatsThatColor extends javax.swing.JFrame {
      * method called when the user selects a icc profile from the combobox
      */
     private void iccProfileComboBoxItemStateChanged(java.awt.event.ItemEvent evt) {//GEN-FIRST:event_iccProfileComboBoxItemStateChanged
-        // TODO add your handling code here:
         // if profiles are present then
-        if (profiles == null || profiles.length == 0) {
-            try {
-                // load the new profiles as selected in the combobox
-                colorSpace = new ICC_ColorSpace(
-                        ICC_Profile.getInstance(
-                        profiles[iccProfileComboBox.getSelectedIndex()].getAbsolutePath()));
-            } catch (IOException ex) {
-                JOptionPane.showMessageDialog(null, "Could NOT load profile!", "IOException", JOptionPane.ERROR_MESSAGE);
-            }
+        int index = iccProfileComboBox.getSelectedIndex();
+        if (evt.getStateChange() == ItemEvent.SELECTED && index >= 0 && index < profiles.size()) {
+            // load the new profiles as selected in the combobox
+            loadProfile(index);
         }
     }//GEN-LAST:event_iccProfileComboBoxItemStateChanged
 
@@ -472,6 +1122,27 @@ public class WhatsThatColor extends javax.swing.JFrame {
      * @param args the command line arguments
      */
     public static void main(String args[]) {
+        // run headless if a command line mode is given
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchAnalyser.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--stream")) {
+            StreamAnalyser.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--watch")) {
+            ProbeSet.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            SamplingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--dump-log")) {
+            CaptureLog.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         /* Set the Nimbus look and feel */
         //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
         /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
@@ -0,0 +1,260 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the accuracy of the CMYK lookup table against the exact conversion
+ * of the color management module, and that the lookups do not wait for the
+ * table build.
+ *
+ * The accuracy is always tested against a synthetic CMYK color space with
+ * gamma curves and gray component replacement, and again against an ICC
+ * profile if there is one: the profile set with the 'wtc.test.profile'
+ * system property, otherwise the first CMYK profile of the 'ICC_PROFILES'
+ * folder.
+ *
+ * @author deepak
+ */
+public class CmykLookupTableTest {
+
+    // the largest CMYK component error of a default grid table
+    private static final float MAX_ERROR = 0.03f;
+    // the distance between the test colors per channel
+    private static final int STEP = 5;
+
+    /*
+     * a smooth stand in for a CMYK profile: gamma decoded RGB, 80% gray
+     * component replacement and a dot gain curve per ink
+     */
+    private static final class SyntheticCmykColorSpace extends ColorSpace {
+
+        private static final long serialVersionUID = 1L;
+        private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+        // the part of the gray component printed with black ink
+        private static final float GCR = 0.8f;
+
+        private SyntheticCmykColorSpace() {
+            super(ColorSpace.TYPE_CMYK, 4);
+        }
+
+        /*
+         * method to apply the dot gain of an ink
+         */
+        private static float gain(float ink) {
+            return ink * (1.3f - 0.3f * ink);
+        }
+
+        /*
+         * method to invert the dot gain of an ink
+         */
+        private static float ungain(float dot) {
+            return (float) ((1.3 - Math.sqrt(1.69 - 1.2 * dot)) / 0.6);
+        }
+
+        @Override
+        public float[] fromRGB(float[] rgb) {
+            float c = 1 - (float) Math.pow(rgb[0], 2.2);
+            float m = 1 - (float) Math.pow(rgb[1], 2.2);
+            float y = 1 - (float) Math.pow(rgb[2], 2.2);
+            float k = GCR * Math.min(c, Math.min(m, y));
+            return new float[]{gain(c - k), gain(m - k), gain(y - k), gain(k)};
+        }
+
+        @Override
+        public float[] toRGB(float[] cmyk) {
+            float k = ungain(cmyk[3]);
+            float[] rgb = new float[3];
+            for (int i = 0; i < 3; i++) {
+                rgb[i] = (float) Math.pow(Math.max(0, Math.min(1, 1 - ungain(cmyk[i]) - k)), 1 / 2.2);
+            }
+            return rgb;
+        }
+
+        @Override
+        public float[] fromCIEXYZ(float[] xyz) {
+            return fromRGB(SRGB.fromCIEXYZ(xyz));
+        }
+
+        @Override
+        public float[] toCIEXYZ(float[] cmyk) {
+            return SRGB.toCIEXYZ(toRGB(cmyk));
+        }
+    }
+
+    /*
+     * method to get the color spaces to test, the synthetic one and the
+     * test profile if there is one
+     */
+    private static List<ColorSpace> colorSpaces() throws IOException {
+        List<ColorSpace> colorSpaces = new ArrayList<>();
+        colorSpaces.add(new SyntheticCmykColorSpace());
+        ColorSpace profile = loadProfile();
+        if (profile != null) {
+            colorSpaces.add(profile);
+        }
+        return colorSpaces;
+    }
+
+    /*
+     * method to load the test profile, null if there is none
+     */
+    private static ColorSpace loadProfile() throws IOException {
+        String name = System.getProperty("wtc.test.profile");
+        File[] files = name != null ? new File[]{new File(name)} : new File("ICC_PROFILES").listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().toLowerCase(Locale.ROOT).endsWith(".icc") || name != null) {
+                    ICC_Profile profile = ICC_Profile.getInstance(file.getPath());
+                    if (profile.getColorSpaceType() == ColorSpace.TYPE_CMYK) {
+                        return new ICC_ColorSpace(profile);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /*
+     * method to get the largest CMYK component difference between the table
+     * and the exact conversion over a grid of test colors
+     */
+    private static float maxError(CmykLookupTable table) {
+        table.build();
+        assertTrue(table.isBuilt());
+        float[] exact = new float[4];
+        float[] approximated = new float[4];
+        float max = 0;
+        for (int r = 0; r < 256; r += STEP) {
+            for (int g = 0; g < 256; g += STEP) {
+                for (int b = 0; b < 256; b += STEP) {
+                    int rgb = r << 16 | g << 8 | b;
+                    CmykLookupTable.convert(table.getColorSpace(), rgb, exact);
+                    table.lookup(rgb, approximated);
+                    for (int c = 0; c < 4; c++) {
+                        max = Math.max(max, Math.abs(exact[c] - approximated[c]));
+                    }
+                }
+            }
+        }
+        return max;
+    }
+
+    @Test
+    public void defaultGridIsAccurate() throws IOException {
+        for (ColorSpace colorSpace : colorSpaces()) {
+            float error = maxError(new CmykLookupTable(colorSpace, CmykLookupTable.DEFAULT_GRID_SIZE));
+            assertTrue("max error " + error + " of " + colorSpace, error < MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void finerGridIsMoreAccurate() throws IOException {
+        for (ColorSpace colorSpace : colorSpaces()) {
+            float coarse = maxError(new CmykLookupTable(colorSpace, 9));
+            float fine = maxError(new CmykLookupTable(colorSpace, CmykLookupTable.DEFAULT_GRID_SIZE));
+            assertTrue("max error " + fine + " of 33 nodes, " + coarse + " of 9 nodes of " + colorSpace,
+                    fine < coarse);
+        }
+    }
+
+    @Test
+    public void gridNodesAreExact() throws IOException {
+        for (ColorSpace colorSpace : colorSpaces()) {
+            // with 18 nodes per channel every 15th value is a grid node
+            CmykLookupTable table = new CmykLookupTable(colorSpace, 18);
+            table.build();
+            float[] exact = new float[4];
+            float[] approximated = new float[4];
+            for (int v = 0; v < 256; v += 15) {
+                int rgb = v << 16 | (255 - v) << 8 | v / 2 / 15 * 15;
+                CmykLookupTable.convert(colorSpace, rgb, exact);
+                table.lookup(rgb, approximated);
+                for (int c = 0; c < 4; c++) {
+                    assertEquals(exact[c], approximated[c], 1e-5f);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void lookupDoesNotWaitForTheBuild() throws InterruptedException {
+        // a color space which is slow to convert on the building thread
+        final Thread caller = Thread.currentThread();
+        ColorSpace slow = new ColorSpace(ColorSpace.TYPE_CMYK, 4) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public float[] fromRGB(float[] rgb) {
+                if (Thread.currentThread() != caller) {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return new float[]{1 - rgb[0], 1 - rgb[1], 1 - rgb[2], 0};
+            }
+
+            @Override
+            public float[] toRGB(float[] cmyk) {
+                return new float[]{1 - cmyk[0], 1 - cmyk[1], 1 - cmyk[2]};
+            }
+
+            @Override
+            public float[] fromCIEXYZ(float[] xyz) {
+                return fromRGB(ColorSpace.getInstance(ColorSpace.CS_sRGB).fromCIEXYZ(xyz));
+            }
+
+            @Override
+            public float[] toCIEXYZ(float[] cmyk) {
+                return ColorSpace.getInstance(ColorSpace.CS_sRGB).toCIEXYZ(toRGB(cmyk));
+            }
+        };
+        // 1000 nodes take at least 5 seconds to build
+        CmykLookupTable table = new CmykLookupTable(slow, 10);
+        float[] cmyk = new float[4];
+        table.lookup(0x336699, cmyk);
+        Thread.sleep(50);
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            table.lookup(0x336699, cmyk);
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        assertFalse(table.isBuilt());
+        assertTrue("100 lookups took " + millis + " ms", millis < 1000);
+    }
+}
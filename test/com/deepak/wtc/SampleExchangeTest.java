@@ -0,0 +1,141 @@
+/*
+ *  What's That Color v0.3
+ *
+ *  What's That Color is an app to get the current pixel color
+ *  at mouse pointer in RGB and HSB values
+ *
+ *  Developed By : deepak
+ *  Email : deepakpk009@yahoo.in
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Lesser General Public License as published by
+ the Free Software Foundation, either version 3 of the License, or
+ (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU Lesser General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.deepak.wtc;
+
+import java.awt.color.ColorSpace;
+import java.lang.management.ManagementFactory;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Test;
+
+/**
+ * Tests that analysing a sample and handing it over through the exchange
+ * allocates nothing once warmed up.
+ *
+ * @author deepak
+ */
+public class SampleExchangeTest {
+
+    // the samples analysed before the allocations are measured
+    private static final int WARMUP = 200000;
+    // the samples the allocations are measured over
+    private static final int SAMPLES = 100000;
+
+    /*
+     * a naive CMYK color space, the table is built from it once
+     */
+    private static final class NaiveCmykColorSpace extends ColorSpace {
+
+        private static final long serialVersionUID = 1L;
+        private static final ColorSpace SRGB = ColorSpace.getInstance(ColorSpace.CS_sRGB);
+
+        private NaiveCmykColorSpace() {
+            super(ColorSpace.TYPE_CMYK, 4);
+        }
+
+        @Override
+        public float[] fromRGB(float[] rgb) {
+            float k = 1 - Math.max(rgb[0], Math.max(rgb[1], rgb[2]));
+            float w = k < 1 ? 1 - k : 1;
+            return new float[]{(1 - rgb[0] - k) / w, (1 - rgb[1] - k) / w, (1 - rgb[2] - k) / w, k};
+        }
+
+        @Override
+        public float[] toRGB(float[] cmyk) {
+            float w = 1 - cmyk[3];
+            return new float[]{(1 - cmyk[0]) * w, (1 - cmyk[1]) * w, (1 - cmyk[2]) * w};
+        }
+
+        @Override
+        public float[] fromCIEXYZ(float[] xyz) {
+            return fromRGB(SRGB.fromCIEXYZ(xyz));
+        }
+
+        @Override
+        public float[] toCIEXYZ(float[] cmyk) {
+            return SRGB.toCIEXYZ(toRGB(cmyk));
+        }
+    }
+
+    /*
+     * method to run a number of ticks of the analyser and the render timer,
+     * returns a value depending on the samples so nothing is optimized away
+     */
+    private static long ticks(SampleExchange exchange, CmykLookupTable table, NamedColorIndex names,
+            AnalyserMetrics metrics, int count) {
+        long check = 0;
+        for (int i = 0; i < count; i++) {
+            int rgb = i * 0x9E3779B1 & 0xFFFFFF;
+            exchange.acquire().set(i & 1023, i >> 10, rgb, table, names, 0xFFFFFFFF, metrics);
+            exchange.publish();
+            // every other sample is coalesced before the event dispatch thread takes one
+            if ((i & 1) == 1) {
+                ColorSample sample = exchange.take();
+                check += sample.getRGB() + sample.getCyan() + sample.getColorName().length();
+                exchange.recycle(sample);
+            }
+        }
+        return check;
+    }
+
+    @Test
+    public void analysisAndHandOverAllocateNothing() throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        CmykLookupTable table = new CmykLookupTable(new NaiveCmykColorSpace(), 9);
+        table.build();
+        NamedColorIndex names = NamedColorIndex.loadDefault();
+        AnalyserMetrics metrics = new AnalyserMetrics();
+        SampleExchange exchange = new SampleExchange();
+        long check = ticks(exchange, table, names, metrics, WARMUP);
+
+        // the measurement itself may allocate a little, but far less than
+        // one object per sample
+        long before = allocations.getThreadAllocatedBytes(thread);
+        check += ticks(exchange, table, names, metrics, SAMPLES);
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+        assertTrue(check != 0);
+        assertTrue("allocated " + allocated + " bytes over " + SAMPLES + " samples", allocated < SAMPLES);
+    }
+
+    @Test
+    public void takeGetsTheLatestSample() {
+        SampleExchange exchange = new SampleExchange();
+        exchange.acquire().set(1, 1, 0x112233, null, null);
+        exchange.publish();
+        exchange.acquire().set(2, 2, 0x445566, null, null);
+        exchange.publish();
+        ColorSample sample = exchange.take();
+        assertNotNull(sample);
+        assertEquals(0xFF445566, sample.getRGB());
+        assertEquals(null, exchange.take());
+        assertEquals(1, exchange.getCoalesced());
+    }
+}